@@ -0,0 +1,241 @@
+package org.pitest.voices;
+
+import org.pitest.voices.audio.Audio;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Collects concurrent requests into batches, so a session that supports batching renders
+ * them in one model run. The first request to arrive waits out the window, or until a
+ * full batch has arrived, then renders everything collected on its own thread while later
+ * requests start the next window. Requests of similar length are batched together, so
+ * little time is spent rendering padding. The first caller renders only the batch holding
+ * its own request, and each other batch is handed to one of its own callers, so batches
+ * render concurrently rather than one after another.
+ *
+ * A batch renders for several callers, so does not stop when one of them is cancelled.
+ * A cancelled caller stops waiting at once, and its request is dropped if its batch has
+ * not started. A caller handed a batch renders it for the others even if cancelled.
+ */
+class BatchingVoiceSession implements VoiceSession {
+
+    // rows may be padded by at most this fraction of the shortest row's length
+    private static final double MAX_PADDING = 0.25;
+
+    // states of a pending request
+    private static final int WAITING = 0;
+    private static final int LEADING = 1;
+    private static final int RENDERING = 2;
+    private static final int CANCELLED = 3;
+
+    private final VoiceSession delegate;
+    private final long windowNanos;
+    private final int maxBatch;
+
+    private final Object lock = new Object();
+    // guarded by lock
+    private List<Pending> queue = new ArrayList<>();
+    private boolean collecting;
+
+    BatchingVoiceSession(VoiceSession delegate, long windowNanos, int maxBatch) {
+        this.delegate = delegate;
+        this.windowNanos = windowNanos;
+        this.maxBatch = maxBatch;
+    }
+
+    @Override
+    public Long idForSymbol(String phoneme) {
+        return delegate.idForSymbol(phoneme);
+    }
+
+    @Override
+    public ModelConfig config() {
+        return delegate.config();
+    }
+
+    @Override
+    public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+        Cancellation cancellation = Cancellation.current();
+        cancellation.throwIfCancelled();
+        Pending pending = new Pending(new PhonemeRequest(sid, phoneme_ids, gain, params), cancellation);
+
+        boolean lead;
+        synchronized (lock) {
+            queue.add(pending);
+            lead = !collecting;
+            collecting = true;
+            if (queue.size() >= maxBatch) {
+                lock.notifyAll();
+            }
+        }
+        if (lead) {
+            dispatch(collect(), pending);
+        } else {
+            awaitTurn(pending);
+        }
+        return result(pending);
+    }
+
+    private void dispatch(List<Pending> collected, Pending mine) {
+        List<Pending> own = null;
+        for (List<Pending> batch : group(collected)) {
+            if (batch.contains(mine)) {
+                own = batch;
+            } else {
+                handOff(batch);
+            }
+        }
+        if (own != null) {
+            render(own);
+        }
+    }
+
+    private static void handOff(List<Pending> batch) {
+        for (Pending p : batch) {
+            if (p.state.compareAndSet(WAITING, LEADING)) {
+                p.turn.complete(batch);
+                return;
+            }
+        }
+    }
+
+    private void awaitTurn(Pending pending) {
+        try {
+            pending.cancellation.await(CompletableFuture.anyOf(pending.result, pending.turn));
+        } catch (ExecutionException e) {
+            // the batch failed, which the result reports
+        } catch (CancellationException e) {
+            if (pending.state.compareAndSet(WAITING, CANCELLED) || pending.state.get() != LEADING) {
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.state.compareAndSet(WAITING, CANCELLED) || pending.state.get() != LEADING) {
+                throw new RuntimeException("Interrupted waiting for a batch", e);
+            }
+        }
+        if (pending.state.get() == LEADING) {
+            render(pending.turn.join());
+        }
+    }
+
+    private static Audio result(Pending pending) {
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private List<Pending> collect() {
+        synchronized (lock) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining = windowNanos;
+            while (queue.size() < maxBatch && remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    // render what has arrived, rather than strand the other callers
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+            List<Pending> collected = queue;
+            queue = new ArrayList<>();
+            collecting = false;
+            return collected;
+        }
+    }
+
+    private void render(List<Pending> batch) {
+        List<Pending> live = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            if (p.claim()) {
+                live.add(p);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        List<PhonemeRequest> requests = live.stream().map(p -> p.request).collect(Collectors.toList());
+        try {
+            // the batch is shared, so must not be terminated by this caller's cancellation
+            List<Audio> audio = Cancellation.none().during(() -> delegate.sayBatch(requests));
+            for (int i = 0; i != live.size(); i++) {
+                live.get(i).result.complete(audio.get(i));
+            }
+        } catch (RuntimeException | Error e) {
+            live.forEach(p -> p.result.completeExceptionally(e));
+        }
+    }
+
+    List<List<Pending>> group(List<Pending> pending) {
+        List<Pending> byLength = new ArrayList<>(pending);
+        byLength.sort(Comparator.comparingInt(p -> p.request.ids().length));
+
+        List<List<Pending>> batches = new ArrayList<>();
+        List<Pending> batch = new ArrayList<>();
+        int shortest = 0;
+        for (Pending p : byLength) {
+            int length = p.request.ids().length;
+            if (!batch.isEmpty() && (batch.size() == maxBatch || length > shortest * (1 + MAX_PADDING) + 1)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
+            if (batch.isEmpty()) {
+                shortest = length;
+            }
+            batch.add(p);
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+
+    static final class Pending {
+        final PhonemeRequest request;
+        final Cancellation cancellation;
+        final CompletableFuture<Audio> result = new CompletableFuture<>();
+        // completed with a batch this caller must render for the others
+        final CompletableFuture<List<Pending>> turn = new CompletableFuture<>();
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Pending(PhonemeRequest request, Cancellation cancellation) {
+            this.request = request;
+            this.cancellation = cancellation;
+        }
+
+        // take the request into a batch that is about to render, unless cancelled
+        boolean claim() {
+            try {
+                cancellation.throwIfCancelled();
+            } catch (CancellationException e) {
+                if (state.compareAndSet(WAITING, CANCELLED) || state.compareAndSet(LEADING, CANCELLED)) {
+                    result.completeExceptionally(e);
+                }
+                return false;
+            }
+            return state.compareAndSet(WAITING, RENDERING) || state.compareAndSet(LEADING, RENDERING);
+        }
+    }
+}
@@ -3,31 +3,70 @@ package org.pitest.voices;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import org.pitest.voices.g2p.core.CacheStats;
+import org.pitest.voices.g2p.core.CachingG2PModel;
 import org.pitest.voices.g2p.core.Dictionary;
 import org.pitest.voices.g2p.core.G2PModel;
 import org.pitest.voices.g2p.core.PiperPhonemizer;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Heavyweight class that holds model resources. For best performance
- * instantiate once per application, but note the class is not thread
- * safe.
+ * instantiate once per application.
+ *
+ * Chorus is thread safe. Each model is loaded once, however many threads request
+ * it, and voices may be created and used from any thread. Voices are immutable and
+ * may be shared between threads, with concurrent calls either sharing the model's
+ * session or, if ChorusConfig.withSessionsPerModel is set, leasing from a pool.
+ * If ChorusConfig.withMaxLoadedModels or withModelMemoryBudget is set, idle models
+ * are closed once over the limit and loaded again when next used.
+ * Close must not be called while other threads are still using the voices.
  */
 public class Chorus implements AutoCloseable {
 
+    private static final String WARM_UP = "Hello. This is a warm up.";
+
     private final ChorusConfig conf;
 
     private final Map<String, VoiceSession> voices = new ConcurrentHashMap<>();
 
-    // lazily initialised
+    private final List<EvictableVoiceSession> evictable = new CopyOnWriteArrayList<>();
+
+    // sessions shared between voices of this instance, keyed by model file
+    private final Map<Path, SharedSession> shared = new HashMap<>();
+
+    // null unless a limit on loaded models is configured
+    private final SessionBudget budget;
+
+    // lazily initialised, guarded by this
     private G2PModel g2p;
 
-    // lazily initialised, held only to allow closing
-    private OrtSession.SessionOptions opts;
+    // lazily initialised, guarded by envLock so sessions can load while the g2p model holds this
+    private final Object envLock = new Object();
+    private OrtEnvironment env;
+
+    // lazily initialised, only used when auto tuning is configured. Guarded by this
+    private SessionTuner tuner;
+
+    // lazily initialised, only used when parallel synthesis is configured. Guarded by this
+    private ExecutorService synthesisPool;
 
     public Chorus(Dictionary dictionary) {
         this(new ChorusConfig(dictionary));
@@ -35,52 +74,207 @@ public class Chorus implements AutoCloseable {
 
     public Chorus(ChorusConfig conf) {
         this.conf = conf;
+        this.budget = conf.maxLoadedModels() == 0 && conf.maxModelBytes() == 0
+                ? null
+                : new SessionBudget(conf.maxLoadedModels(), conf.maxModelBytes(), evictable);
     }
 
     public Voice voice(Model model) {
-        var session = voices.computeIfAbsent(model.id(), n -> loadVoice(model));
+        var session = session(model);
         var phonemizer = new PiperPhonemizer(g2p(), conf.expansions(), conf.trace());
 
-        return model.createVoice(phonemizer, conf.trace(),
+        var voice = model.createVoice(phonemizer, conf.trace(),
                 session,
                 model.defaultGain());
+
+        if (conf.sentenceMergeBudget() > 0) {
+            voice = voice.withSentenceMerging(conf.sentenceMergeBudget());
+        }
+        if (conf.synthesisThreads() == 0) {
+            return voice;
+        }
+        return voice.withParallelism(Parallelism.parallel(synthesisPool(), conf.maxSentencesInFlight()));
+    }
+
+    /**
+     * Prepare voices in the background, so the first call to each does not pay for loading
+     * models, initialising language resources and ONNX Runtime's first run allocations.
+     * Models load in parallel while the phoneme model and language resources initialise,
+     * then a short utterance is rendered with each voice.
+     * @param models models to prepare
+     * @return future completing once every voice is ready, or exceptionally if any fails
+     */
+    public CompletableFuture<Void> preload(Collection<Model> models) {
+        ExecutorService pool = preloadPool(models.size() + 1);
+        CompletableFuture<Void> language = CompletableFuture.runAsync(
+                () -> new PiperPhonemizer(g2p(), conf.expansions(), conf.trace()), pool);
+
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        ready.add(language);
+        for (Model model : models) {
+            ready.add(CompletableFuture.runAsync(() -> session(model), pool)
+                    .runAfterBothAsync(language, () -> voice(model).say(WARM_UP), pool));
+        }
+
+        return CompletableFuture.allOf(ready.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((r, e) -> pool.shutdown());
+    }
+
+    private static ExecutorService preloadPool(int tasks) {
+        var count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.min(tasks, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread t = new Thread(r, "voices-preload-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
     }
 
-    private G2PModel g2p() {
+    private VoiceSession session(Model model) {
+        var session = voices.computeIfAbsent(model.id(), n -> budget == null ? loadVoice(model) : loadEvictable(model));
+        if (budget != null) {
+            budget.enforce();
+        }
+        return session;
+    }
+
+    private synchronized ExecutorService synthesisPool() {
+        if (synthesisPool != null) {
+            return synthesisPool;
+        }
+        var count = new AtomicInteger();
+        synthesisPool = Executors.newFixedThreadPool(conf.synthesisThreads(), r -> {
+            Thread t = new Thread(r, "voices-synthesis-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        return synthesisPool;
+    }
+
+    private synchronized G2PModel g2p() {
         if (g2p != null) {
             return g2p;
         }
-        g2p = conf.model().create(this::configureSession, conf.dictionary(), OrtEnvironment.getEnvironment(), conf.base());
+        G2PModel model = conf.model().create(sessions(this::configureSession), conf.dictionary(), conf.base());
+        if (conf.g2pCacheSize() > 0) {
+            model = new CachingG2PModel(model, conf.g2pCacheSize());
+        }
+        g2p = model;
         return g2p;
     }
 
+    /**
+     * Activity of the phoneme prediction cache
+     * @return cache statistics, all zero if the cache is disabled or unused
+     */
+    public synchronized CacheStats g2pCacheStats() {
+        if (g2p instanceof CachingG2PModel) {
+            return ((CachingG2PModel) g2p).stats();
+        }
+        return CacheStats.none();
+    }
+
     private VoiceSession loadVoice(Model model) {
         try {
             Files.createDirectories(conf.base());
-            return loadPiperModel(model);
+            VoiceSession session = conf.sessionsPerModel() == 1
+                    ? loadPiperModel(model)
+                    : new PooledVoiceSession(() -> loadPiperModel(model), conf.sessionsPerModel());
+            if (conf.maxBatchSize() > 1 && session.supportsBatching()) {
+                session = new BatchingVoiceSession(session, conf.batchWindowNanos(), conf.maxBatchSize());
+            }
+            return conf.coalesceRequests() ? new CoalescingVoiceSession(session) : session;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private VoiceSession loadEvictable(Model model) {
+        try {
+            long bytes = Files.size(model.asPath(conf.base())) * conf.sessionsPerModel();
+            var session = new EvictableVoiceSession(() -> loadVoice(model), bytes, budget);
+            evictable.add(session);
+            return session;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     private VoiceSession loadPiperModel(Model model) {
-        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        if (conf.autoTune()) {
+            return load(model, tunedSessions(model));
+        }
+        return load(model, sessions(this::configureSession));
+    }
+
+    private VoiceSession load(Model model, SessionLoader loader) {
         try {
-            var options = configureSession();
-            return model.createSession(env, options, conf.base());
+            return model.createSession(loader, conf.base());
         } catch (IOException | OrtException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private OrtSession.SessionOptions configureSession() {
-        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+    private SessionLoader tunedSessions(Model model) {
+        // candidates are loaded directly, so their graphs do not churn the optimised cache
+        Optional<SessionTuning> tuning = tuner().tuningFor(model.id(), model.sid(),
+                candidate -> load(model, SessionTuner.candidateLoader(SessionLoader.configured(env(), tuned(candidate)))));
+        return sessions(tuning.map(this::tuned).orElse(this::configureSession));
+    }
+
+    private Consumer<OrtSession.SessionOptions> tuned(SessionTuning tuning) {
+        return options -> {
+            configureSession(options);
+            tuning.applyTo(options);
+        };
+    }
+
+    private SessionLoader sessions(Consumer<OrtSession.SessionOptions> configure) {
+        if (conf.optimisedModelCache()) {
+            return new SharingSessionLoader(new OptimisedSessionLoader(env(), conf.base().resolve("optimised"), configure), shared, budget);
+        }
+        return new SharingSessionLoader(SessionLoader.configured(env(), configure), shared, budget);
+    }
+
+    private OrtEnvironment env() {
+        synchronized (envLock) {
+            if (env == null) {
+                env = Environments.environment(conf.sharedThreads());
+            }
+            return env;
+        }
+    }
+
+    private synchronized SessionTuner tuner() {
+        if (tuner == null) {
+            tuner = new SessionTuner(conf.base().resolve("tuning"), Runtime.getRuntime().availableProcessors(), conf.sharedThreads() != 0);
+        }
+        return tuner;
+    }
+
+    private void configureSession(OrtSession.SessionOptions options) {
         conf.cudaOptions().accept(options);
-        return options;
+        if (conf.sharedThreads() != 0) {
+            try {
+                options.disablePerSessionThreads();
+            } catch (OrtException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
+        if (synthesisPool != null) {
+            synthesisPool.shutdownNow();
+            // interrupting does not stop a running inference, so wait for sentences
+            // already rendering to finish before their sessions are closed
+            try {
+                synthesisPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         voices.values().forEach(v -> {
             try {
                 v.close();
@@ -97,14 +291,6 @@ public class Chorus implements AutoCloseable {
             }
         }
 
-        if (opts != null) {
-            try {
-                opts.close();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
-
     }
 
 }
@@ -10,6 +10,7 @@ import org.pitest.voices.g2p.core.syllables.RulesSyllabiliser;
 import org.pitest.voices.g2p.core.tracing.Trace;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -21,6 +22,19 @@ public class ChorusConfig {
     private final Trace trace;
     private final List<Expansion> expansions;
     private final Consumer<OrtSession.SessionOptions> cudaOptions;
+    private final int synthesisThreads;
+    private final int maxSentencesInFlight;
+    private final int g2pCacheSize;
+    private final int sessionsPerModel;
+    private final boolean optimisedModelCache;
+    private final int sharedThreads;
+    private final boolean autoTune;
+    private final int maxLoadedModels;
+    private final long maxModelBytes;
+    private final boolean coalesceRequests;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final int sentenceMergeBudget;
 
     public static ChorusConfig gpuChorusConfig(Dictionary dictionary){
         return chorusConfig(dictionary)
@@ -34,7 +48,7 @@ public class ChorusConfig {
     public ChorusConfig(Dictionary dictionary) {
         this(defaultCacheDir(),
                 dictionary
-                , ((s, d,e, p) -> new EnglishModel(d, new RulesSyllabiliser()))
+                , ((s, d, e, p) -> new EnglishModel(d, new RulesSyllabiliser()))
                 , Trace.noTrace(),
                 List.of(new NumberExpander()), c -> {});
     }
@@ -45,12 +59,60 @@ public class ChorusConfig {
                         Trace trace,
                         List<Expansion> expansions,
                         Consumer<OrtSession.SessionOptions> cudaOptions) {
+        this(base, dictionary, phonemeModel, trace, expansions, cudaOptions,
+                0,
+                1,
+                0,
+                1,
+                false,
+                0,
+                false,
+                0,
+                0,
+                false,
+                0,
+                1,
+                0);
+    }
+
+    private ChorusConfig(Path base,
+                         Dictionary dictionary,
+                         G2PModelSupplier phonemeModel,
+                         Trace trace,
+                         List<Expansion> expansions,
+                         Consumer<OrtSession.SessionOptions> cudaOptions,
+                         int synthesisThreads,
+                         int maxSentencesInFlight,
+                         int g2pCacheSize,
+                         int sessionsPerModel,
+                         boolean optimisedModelCache,
+                         int sharedThreads,
+                         boolean autoTune,
+                         int maxLoadedModels,
+                         long maxModelBytes,
+                         boolean coalesceRequests,
+                         long batchWindowNanos,
+                         int maxBatchSize,
+                         int sentenceMergeBudget) {
         this.base = base;
         this.dictionary = dictionary;
         this.phonemeModel = phonemeModel;
         this.trace = trace;
         this.expansions = expansions;
         this.cudaOptions = cudaOptions;
+        this.synthesisThreads = synthesisThreads;
+        this.maxSentencesInFlight = maxSentencesInFlight;
+        this.g2pCacheSize = g2pCacheSize;
+        this.sessionsPerModel = sessionsPerModel;
+        this.optimisedModelCache = optimisedModelCache;
+        this.sharedThreads = sharedThreads;
+        this.autoTune = autoTune;
+        this.maxLoadedModels = maxLoadedModels;
+        this.maxModelBytes = maxModelBytes;
+        this.coalesceRequests = coalesceRequests;
+        this.batchWindowNanos = batchWindowNanos;
+        this.maxBatchSize = maxBatchSize;
+        this.sentenceMergeBudget = sentenceMergeBudget;
     }
 
     public Path base() {
@@ -77,30 +139,239 @@ public class ChorusConfig {
         return cudaOptions;
     }
 
+    public int synthesisThreads() {
+        return synthesisThreads;
+    }
+
+    public int maxSentencesInFlight() {
+        return maxSentencesInFlight;
+    }
+
+    public int g2pCacheSize() {
+        return g2pCacheSize;
+    }
+
+    public int sessionsPerModel() {
+        return sessionsPerModel;
+    }
+
+    public boolean optimisedModelCache() {
+        return optimisedModelCache;
+    }
+
+    public int sharedThreads() {
+        return sharedThreads;
+    }
+
+    public boolean autoTune() {
+        return autoTune;
+    }
+
+    public int maxLoadedModels() {
+        return maxLoadedModels;
+    }
+
+    public long maxModelBytes() {
+        return maxModelBytes;
+    }
+
+    public boolean coalesceRequests() {
+        return coalesceRequests;
+    }
+
+    public long batchWindowNanos() {
+        return batchWindowNanos;
+    }
+
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int sentenceMergeBudget() {
+        return sentenceMergeBudget;
+    }
+
     public ChorusConfig withBase(Path base) {
-        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions);
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
     }
 
     public ChorusConfig withModel(G2PModelSupplier phonemeModel) {
-        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions);
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
     }
 
     public ChorusConfig withTrace(Trace trace) {
-        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions);
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
     }
 
     public ChorusConfig withExpansions(List<Expansion> expansions)  {
-        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions);
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
     }
 
     public ChorusConfig withCudaOptions(Consumer<OrtSession.SessionOptions> cudaOptions) {
-        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions);
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
     }
 
     public ChorusConfig withDictionary(Dictionary dictionary) {
-        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions);
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
     }
 
+    /**
+     * Render the sentences of each say call concurrently on a pool owned by Chorus.
+     * @param synthesisThreads size of the shared pool. 0 renders sequentially on the calling thread
+     * @param maxSentencesInFlight maximum sentences rendering at once for a single say call
+     * @return updated config
+     */
+    public ChorusConfig withParallelism(int synthesisThreads, int maxSentencesInFlight) {
+        if (synthesisThreads < 0 || maxSentencesInFlight < 1) {
+            throw new IllegalArgumentException("Threads must be positive and max in flight at least 1");
+        }
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Cache phoneme predictions for recently seen words. Disabled by default. A few
+     * thousand entries covers the words that recur in most text.
+     * @param g2pCacheSize maximum number of words to hold. 0 disables the cache
+     * @return updated config
+     */
+    public ChorusConfig withG2PCacheSize(int g2pCacheSize) {
+        if (g2pCacheSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative");
+        }
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Number of sessions to load for each model. With a single session (the default) all
+     * concurrent calls share it, competing for its threads. With more, each call leases a
+     * session of its own, and calls wait only once every session is busy. Each additional
+     * piper session holds another copy of the model in memory. Kokoro voices share one
+     * model regardless, so gain little from more than one session.
+     * @param sessionsPerModel maximum sessions per model, at least 1
+     * @return updated config
+     */
+    public ChorusConfig withSessionsPerModel(int sessionsPerModel) {
+        if (sessionsPerModel < 1) {
+            throw new IllegalArgumentException("At least one session per model is required");
+        }
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Save the graphs ONNX Runtime produces when optimising models to the cache directory,
+     * and load those on later runs rather than optimising again. A graph is saved for each
+     * cpu and set of session options a model is loaded with, and graphs are removed once
+     * the model file or ONNX Runtime version changes. Models whose graphs cannot be saved
+     * or reloaded are loaded as usual. Disabled by default.
+     * @param optimisedModelCache true to cache optimised graphs
+     * @return updated config
+     */
+    public ChorusConfig withOptimisedModelCache(boolean optimisedModelCache) {
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Run every session on one process wide intra op thread pool, rather than each
+     * session creating a pool of its own. Avoids oversubscribing the cpu when many
+     * voices are loaded. The ONNX Runtime environment is shared by the whole process,
+     * so the pool must be configured before any other code uses ONNX Runtime, and the
+     * first size configured applies to all later instances.
+     * @param sharedThreads threads in the shared pool, usually the number of cores. 0 gives each session its own pool
+     * @return updated config
+     */
+    public ChorusConfig withSharedThreadPool(int sharedThreads) {
+        if (sharedThreads < 0) {
+            throw new IllegalArgumentException("Thread count must not be negative");
+        }
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Benchmark a small grid of thread counts, execution modes and optimisation levels
+     * the first time each model is used on a host, and use the fastest. Results are saved
+     * to the cache directory, keyed by cpu model and core count, so later runs on the same
+     * kind of host skip the benchmark. Settings made by the cuda options consumer may be
+     * overridden. Kokoro voices share one session, so are not tuned. Disabled by default.
+     * @param autoTune true to tune sessions
+     * @return updated config
+     */
+    public ChorusConfig withAutoTune(boolean autoTune) {
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Limit the number of models held in memory. When a newly used model takes the
+     * count over the limit, the least recently used idle models are closed. Voices of
+     * a closed model remain usable and load it again when next used. Models that are
+     * rendering are never closed, so the limit may be exceeded while they are busy.
+     * @param maxLoadedModels maximum loaded models. 0 for no limit
+     * @return updated config
+     */
+    public ChorusConfig withMaxLoadedModels(int maxLoadedModels) {
+        if (maxLoadedModels < 0) {
+            throw new IllegalArgumentException("Model count must not be negative");
+        }
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Limit the memory held by loaded models, closing the least recently used idle models
+     * as for withMaxLoadedModels. A model's size is estimated as the size of its onnx file
+     * for each session loaded, which is close to the weights ONNX Runtime keeps in native
+     * memory. Kokoro voices share one model, which is counted once while any of them is
+     * loaded, and each voice's style table is counted separately.
+     * @param maxModelBytes maximum estimated bytes. 0 for no limit
+     * @return updated config
+     */
+    public ChorusConfig withModelMemoryBudget(long maxModelBytes) {
+        if (maxModelBytes < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative");
+        }
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Render identical concurrent requests once, giving every caller the same Audio. Requests
+     * match when they use the same model and produce the same phonemes with the same gain and
+     * model parameters, so each sentence of a prompt many callers send at once renders a
+     * single time. Nothing is cached once rendering completes. Disabled by default.
+     * @param coalesceRequests true to share renders between concurrent callers
+     * @return updated config
+     */
+    public ChorusConfig withRequestCoalescing(boolean coalesceRequests) {
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Render concurrent sentences for the same model in one batched run. The first sentence
+     * to arrive waits up to the window for others, then sentences of similar length render
+     * together. Raises throughput under concurrent load, at the cost of up to one window of
+     * added latency per sentence. Only models that support batches, currently piper, are
+     * affected. Disabled by default.
+     * @param window time to wait for a batch to fill
+     * @param maxBatchSize most sentences in a batch. 1 disables batching
+     * @return updated config
+     */
+    public ChorusConfig withBatching(Duration window, int maxBatchSize) {
+        if (window.isNegative() || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Window must not be negative and batch size must be at least 1");
+        }
+        long batchWindowNanos = window.toNanos();
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
+
+    /**
+     * Render consecutive short sentences in a single inference, as Voice.withSentenceMerging,
+     * for every voice Chorus creates. Disabled by default.
+     * @param sentenceMergeBudget largest merged input in phoneme ids. 0 renders each sentence separately
+     * @return updated config
+     */
+    public ChorusConfig withSentenceMerging(int sentenceMergeBudget) {
+        if (sentenceMergeBudget < 0) {
+            throw new IllegalArgumentException("Phoneme budget must not be negative");
+        }
+        return new ChorusConfig(base, dictionary, phonemeModel, trace, expansions, cudaOptions, synthesisThreads, maxSentencesInFlight, g2pCacheSize, sessionsPerModel, optimisedModelCache, sharedThreads, autoTune, maxLoadedModels, maxModelBytes, coalesceRequests, batchWindowNanos, maxBatchSize, sentenceMergeBudget);
+    }
 
     private static Path defaultCacheDir() {
         String home = System.getProperty("user.home");
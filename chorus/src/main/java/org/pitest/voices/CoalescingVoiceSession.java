@@ -0,0 +1,131 @@
+package org.pitest.voices;
+
+import org.pitest.voices.audio.Audio;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Renders identical concurrent requests once. A call arriving while an identical one
+ * is rendering waits for it and receives the same Audio, rather than rendering again.
+ * Nothing is kept once a render completes, so later calls render afresh.
+ *
+ * Waiting callers stop waiting as soon as their own cancellation fires.
+ */
+class CoalescingVoiceSession implements VoiceSession {
+
+    private final VoiceSession delegate;
+    private final Map<Request, CompletableFuture<Audio>> inFlight = new ConcurrentHashMap<>();
+
+    CoalescingVoiceSession(VoiceSession delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Long idForSymbol(String phoneme) {
+        return delegate.idForSymbol(phoneme);
+    }
+
+    @Override
+    public ModelConfig config() {
+        return delegate.config();
+    }
+
+    @Override
+    public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+        Request request = new Request(sid, phoneme_ids, gain, params);
+        CompletableFuture<Audio> mine = new CompletableFuture<>();
+        CompletableFuture<Audio> rendering = inFlight.putIfAbsent(request, mine);
+        if (rendering == null) {
+            return render(request, mine);
+        }
+
+        try {
+            return await(rendering);
+        } catch (CancellationException e) {
+            // the caller that rendered was cancelled, which need not stop this one
+            Cancellation.current().throwIfCancelled();
+            return sayPhonemes(sid, phoneme_ids, gain, params);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static Audio await(CompletableFuture<Audio> rendering) throws ExecutionException {
+        try {
+            return Cancellation.current().await(rendering);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for an identical request", e);
+        }
+    }
+
+    private Audio render(Request request, CompletableFuture<Audio> result) {
+        try {
+            Audio audio = delegate.sayPhonemes(request.sid, request.ids, request.gain, request.params);
+            result.complete(audio);
+            return audio;
+        } catch (RuntimeException | Error e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(request, result);
+        }
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    @Override
+    public void close() throws Exception {
+        delegate.close();
+    }
+
+    private static final class Request {
+        private final int sid;
+        private final long[] ids;
+        private final float gain;
+        private final ModelParameters params;
+        private final int hash;
+
+        Request(int sid, long[] ids, float gain, ModelParameters params) {
+            this.sid = sid;
+            this.ids = ids;
+            this.gain = gain;
+            this.params = params;
+            this.hash = Objects.hash(sid, Arrays.hashCode(ids), gain, params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Request)) {
+                return false;
+            }
+            Request other = (Request) o;
+            return sid == other.sid
+                    && Float.compare(gain, other.gain) == 0
+                    && Arrays.equals(ids, other.ids)
+                    && params.equals(other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtLoggingLevel;
+
+/**
+ * The ONNX Runtime environment is process wide, and its thread pools can only be
+ * chosen when it is first created. Creates it with shared pools when requested, and
+ * remembers having done so, so that every Chorus in the process can use them.
+ */
+class Environments {
+
+    // threads in the global pool, 0 if this process has not created one. Guarded by Environments.class
+    private static int sharedThreads;
+
+    /**
+     * Environment for a Chorus
+     * @param threads size of the shared intra op pool, or 0 if sessions own their threads
+     * @return the process wide environment
+     */
+    static synchronized OrtEnvironment environment(int threads) {
+        if (threads == 0 || sharedThreads != 0) {
+            return OrtEnvironment.getEnvironment();
+        }
+
+        try (OrtEnvironment.ThreadingOptions options = new OrtEnvironment.ThreadingOptions()) {
+            options.setGlobalIntraOpNumThreads(threads);
+            OrtEnvironment env = OrtEnvironment.getEnvironment(OrtLoggingLevel.ORT_LOGGING_LEVEL_WARNING, OrtEnvironment.DEFAULT_NAME, options);
+            sharedThreads = threads;
+            return env;
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Shared thread pools must be configured before the ONNX Runtime environment is first used", e);
+        }
+    }
+}
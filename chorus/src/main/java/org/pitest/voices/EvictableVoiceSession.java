@@ -0,0 +1,127 @@
+package org.pitest.voices;
+
+import org.pitest.voices.audio.Audio;
+
+import java.util.function.Supplier;
+
+/**
+ * Session that may be closed while idle to free memory, and is loaded again
+ * when next used. Calls in progress hold a reference, so a session is never
+ * closed while in use.
+ */
+class EvictableVoiceSession implements VoiceSession {
+
+    private final Supplier<VoiceSession> loader;
+    private final long bytes;
+    private final SessionBudget budget;
+    private final ModelConfig config;
+
+    // held while reloading, so the budget can inspect and evict this session meanwhile
+    private final Object loadLock = new Object();
+
+    // guarded by this
+    private VoiceSession session;
+    private int inUse;
+    private long lastUsed;
+
+    EvictableVoiceSession(Supplier<VoiceSession> loader, long bytes, SessionBudget budget) {
+        this.loader = loader;
+        this.bytes = bytes;
+        this.budget = budget;
+        this.session = loader.get();
+        this.config = session.config();
+        budget.loaded(bytes);
+        this.lastUsed = System.nanoTime();
+    }
+
+    @Override
+    public Long idForSymbol(String phoneme) {
+        return config.phonemeIdMap().get(phoneme);
+    }
+
+    @Override
+    public ModelConfig config() {
+        return config;
+    }
+
+    @Override
+    public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+        VoiceSession current = acquire();
+        try {
+            return current.sayPhonemes(sid, phoneme_ids, gain, params);
+        } finally {
+            release();
+            budget.enforce();
+        }
+    }
+
+    synchronized boolean isLoaded() {
+        return session != null;
+    }
+
+    synchronized long lastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Closes the session unless it is in use
+     * @return true if the session was closed
+     */
+    synchronized boolean evict() {
+        if (session == null || inUse != 0) {
+            return false;
+        }
+        closeSession();
+        return true;
+    }
+
+    private VoiceSession acquire() {
+        VoiceSession current = acquireLoaded();
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            current = acquireLoaded();
+            if (current != null) {
+                return current;
+            }
+            VoiceSession loaded = loader.get();
+            synchronized (this) {
+                session = loaded;
+                inUse++;
+            }
+            budget.loaded(bytes);
+            return loaded;
+        }
+    }
+
+    private synchronized VoiceSession acquireLoaded() {
+        if (session != null) {
+            inUse++;
+        }
+        return session;
+    }
+
+    private synchronized void release() {
+        inUse--;
+        lastUsed = System.nanoTime();
+    }
+
+    private void closeSession() {
+        try {
+            session.close();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            session = null;
+            budget.unloaded(bytes);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (session != null) {
+            closeSession();
+        }
+    }
+}
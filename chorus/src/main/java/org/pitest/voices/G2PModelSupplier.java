@@ -22,4 +22,17 @@ public interface G2PModelSupplier {
      * @return A G2PModel
      */
     G2PModel create(Supplier<OrtSession.SessionOptions> options, Dictionary dictionary, OrtEnvironment env, Path base);
+
+    /**
+     * Implementations that load onnx models should override this method, so their
+     * sessions are created, and possibly cached, by the loader
+     * @param loader  Creates OrtSessions for any onnx models implementations
+     *                may need
+     * @param dictionary Dictionary to use
+     * @param base    Path of the cache directory
+     * @return A G2PModel
+     */
+    default G2PModel create(SessionLoader loader, Dictionary dictionary, Path base) {
+        return create(loader::options, dictionary, loader.env(), base);
+    }
 }
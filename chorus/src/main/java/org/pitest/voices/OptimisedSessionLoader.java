@@ -0,0 +1,173 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+
+/**
+ * Saves the graph ONNX Runtime produces when it optimises a model, and loads
+ * that graph directly on later runs so optimisation is not repeated at every
+ * startup.
+ *
+ * Graphs are saved in a directory for each model id, model file and ONNX Runtime version,
+ * with one graph for each platform, cpu model and set of session options. Several processes
+ * may share the cache with different cpus or options, so only the directories of other
+ * model files and ONNX Runtime versions, which can no longer be loaded, are deleted once a
+ * new graph is written.
+ */
+class OptimisedSessionLoader implements SessionLoader {
+
+    private static final String SUFFIX = ".onnx";
+
+    private final OrtEnvironment env;
+    private final Path dir;
+    private final Consumer<OrtSession.SessionOptions> configure;
+
+    OptimisedSessionLoader(OrtEnvironment env, Path dir, Consumer<OrtSession.SessionOptions> configure) {
+        this.env = env;
+        this.dir = dir;
+        this.configure = configure;
+    }
+
+    @Override
+    public OrtEnvironment env() {
+        return env;
+    }
+
+    @Override
+    public OrtSession.SessionOptions options() {
+        return configure();
+    }
+
+    /**
+     * Loads the saved graph if there is one, otherwise loads the model and saves its
+     * graph. Execution providers that compile nodes into their own form, such as TensorRT,
+     * OpenVINO, CoreML and NNAPI, may produce graphs that cannot be saved or reloaded, and
+     * a saved graph may be damaged, so if either fails the model is loaded directly and
+     * nothing is cached.
+     */
+    @Override
+    public OrtSession load(String id, Path model) throws OrtException {
+        try {
+            return loadOptimised(id, model);
+        } catch (OrtException | IOException e) {
+            try (OrtSession.SessionOptions options = configure()) {
+                return env.createSession(model.toString(), options);
+            }
+        }
+    }
+
+    private OrtSession loadOptimised(String id, Path model) throws OrtException, IOException {
+        try (RecordingSessionOptions options = configure()) {
+            Path idDir = dir.resolve(safeName(id));
+            Path modelDir = idDir.resolve(version(model, env.getVersion()));
+            String key = key(id, model, env.getVersion(), options.description());
+            Path optimised = modelDir.resolve(key + SUFFIX);
+
+            if (Files.exists(optimised)) {
+                // already optimised, so skip straight to running it
+                options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.NO_OPT);
+                try {
+                    return env.createSession(optimised.toString(), options);
+                } catch (OrtException e) {
+                    // written again by the next load
+                    Files.deleteIfExists(optimised);
+                    throw e;
+                }
+            }
+
+            Files.createDirectories(modelDir);
+            // ort writes the graph while the session is created, so write elsewhere
+            // then move, so other processes never load a partial file
+            Path temp = Files.createTempFile(modelDir, key, SUFFIX + ".tmp");
+            try {
+                options.setOptimizedModelFilePath(temp.toString());
+                OrtSession session = env.createSession(model.toString(), options);
+                try {
+                    removeOtherVersions(idDir, modelDir);
+                    Files.move(temp, optimised, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // the session is usable even if its graph could not be kept
+                }
+                return session;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private RecordingSessionOptions configure() {
+        RecordingSessionOptions options = new RecordingSessionOptions();
+        configure.accept(options);
+        return options;
+    }
+
+    static String key(String id, Path model, String ortVersion, String options) throws IOException {
+        String parts = String.join("\n",
+                id,
+                Long.toString(Files.size(model)),
+                Long.toString(Files.getLastModifiedTime(model).toMillis()),
+                ortVersion,
+                System.getProperty("os.name"),
+                System.getProperty("os.arch"),
+                // graphs optimised at the highest level use instructions of the cpu they were made on
+                SessionTuner.cpuModel(),
+                options);
+        return hash(parts);
+    }
+
+    private static String hash(String parts) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(parts.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // identifies the model file and runtime, which every graph in a directory shares
+    static String version(Path model, String ortVersion) throws IOException {
+        return hash(String.join("\n",
+                Long.toString(Files.size(model)),
+                Long.toString(Files.getLastModifiedTime(model).toMillis()),
+                ortVersion));
+    }
+
+    private static void removeOtherVersions(Path idDir, Path current) {
+        try (DirectoryStream<Path> versions = Files.newDirectoryStream(idDir, Files::isDirectory)) {
+            for (Path version : versions) {
+                if (!version.equals(current)) {
+                    removeGraphs(version);
+                }
+            }
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+
+    private static void removeGraphs(Path version) {
+        try (DirectoryStream<Path> graphs = Files.newDirectoryStream(version)) {
+            for (Path each : graphs) {
+                Files.deleteIfExists(each);
+            }
+            Files.deleteIfExists(version);
+        } catch (IOException e) {
+            // best effort, a stale graph may still be in use elsewhere
+        }
+    }
+
+    private static String safeName(String id) {
+        return id.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,133 @@
+package org.pitest.voices;
+
+import org.pitest.voices.audio.Audio;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Leases a session from a pool to each call, so concurrent callers render on
+ * separate sessions rather than competing for one. Sessions are created on demand,
+ * up to the pool size, after which callers wait for a session to be returned.
+ */
+class PooledVoiceSession implements VoiceSession {
+
+    private final Supplier<VoiceSession> factory;
+    private final int size;
+    private final BlockingQueue<VoiceSession> idle = new LinkedBlockingQueue<>();
+    private final List<VoiceSession> all = new CopyOnWriteArrayList<>();
+
+    // created eagerly so symbol lookups never need to lease
+    private final VoiceSession first;
+
+    // guarded by this
+    private int created;
+
+    PooledVoiceSession(Supplier<VoiceSession> factory, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool must hold at least one session");
+        }
+        this.factory = factory;
+        this.size = size;
+        this.first = factory.get();
+        this.created = 1;
+        this.all.add(first);
+        this.idle.add(first);
+    }
+
+    @Override
+    public Long idForSymbol(String phoneme) {
+        return first.idForSymbol(phoneme);
+    }
+
+    @Override
+    public ModelConfig config() {
+        return first.config();
+    }
+
+    @Override
+    public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+        VoiceSession session = lease();
+        try {
+            return session.sayPhonemes(sid, phoneme_ids, gain, params);
+        } finally {
+            idle.add(session);
+        }
+    }
+
+    @Override
+    public List<Audio> sayBatch(List<PhonemeRequest> requests) {
+        VoiceSession session = lease();
+        try {
+            return session.sayBatch(requests);
+        } finally {
+            idle.add(session);
+        }
+    }
+
+    @Override
+    public boolean supportsBatching() {
+        return first.supportsBatching();
+    }
+
+    int created() {
+        synchronized (this) {
+            return created;
+        }
+    }
+
+    private VoiceSession lease() {
+        VoiceSession session = idle.poll();
+        if (session != null) {
+            return session;
+        }
+
+        if (reserve()) {
+            try {
+                session = factory.get();
+            } catch (RuntimeException e) {
+                release();
+                throw e;
+            }
+            all.add(session);
+            return session;
+        }
+
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for a voice session", e);
+        }
+    }
+
+    private synchronized boolean reserve() {
+        if (created < size) {
+            created++;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void release() {
+        created--;
+    }
+
+    @Override
+    public void close() throws Exception {
+        Exception failure = null;
+        for (VoiceSession session : all) {
+            try {
+                session.close();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OnnxTensorLike;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.providers.CoreMLFlags;
+import ai.onnxruntime.providers.NNAPIFlags;
+import ai.onnxruntime.providers.OrtCUDAProviderOptions;
+import ai.onnxruntime.providers.OrtTensorRTProviderOptions;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Session options that remember how they were configured, so that anything derived
+ * from a session, such as its optimised graph, can be keyed by the options used.
+ * Settings that do not change the graph (logging, profiling, threads) are not recorded.
+ */
+class RecordingSessionOptions extends OrtSession.SessionOptions {
+
+    private final List<String> calls = new ArrayList<>();
+
+    /**
+     * Description of the recorded settings. Equal descriptions mean equivalently
+     * configured options.
+     * @return a description
+     */
+    String description() {
+        return String.join(";", calls) + ";" + new TreeMap<>(getConfigEntries());
+    }
+
+    private void record(String call, Object... args) {
+        StringBuilder sb = new StringBuilder(call).append('(');
+        for (int i = 0; i != args.length; i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append(args[i]);
+        }
+        calls.add(sb.append(')').toString());
+    }
+
+    @Override
+    public void setExecutionMode(ExecutionMode mode) throws OrtException {
+        super.setExecutionMode(mode);
+        record("executionMode", mode);
+    }
+
+    @Override
+    public void setOptimizationLevel(OptLevel level) throws OrtException {
+        super.setOptimizationLevel(level);
+        record("optimizationLevel", level);
+    }
+
+    @Override
+    public void setMemoryPatternOptimization(boolean memoryPatternOptimization) throws OrtException {
+        super.setMemoryPatternOptimization(memoryPatternOptimization);
+        record("memoryPattern", memoryPatternOptimization);
+    }
+
+    @Override
+    public void setSymbolicDimensionValue(String dimensionName, long dimensionValue) throws OrtException {
+        super.setSymbolicDimensionValue(dimensionName, dimensionValue);
+        record("dimension", dimensionName, dimensionValue);
+    }
+
+    @Override
+    public void setDeterministicCompute(boolean value) throws OrtException {
+        super.setDeterministicCompute(value);
+        record("deterministic", value);
+    }
+
+    @Override
+    public void registerCustomOpLibrary(String path) throws OrtException {
+        super.registerCustomOpLibrary(path);
+        record("customOps", path);
+    }
+
+    @Override
+    public void registerCustomOpsUsingFunction(String registrationFuncName) throws OrtException {
+        super.registerCustomOpsUsingFunction(registrationFuncName);
+        record("customOpsFunction", registrationFuncName);
+    }
+
+    @Override
+    public void addExternalInitializers(Map<String, OnnxTensorLike> initializers) throws OrtException {
+        super.addExternalInitializers(initializers);
+        record("externalInitializers", new TreeMap<>(initializers).keySet());
+    }
+
+    @Override
+    public void addInitializer(String name, OnnxTensorLike initializer) throws OrtException {
+        super.addInitializer(name, initializer);
+        record("initializer", name);
+    }
+
+    @Override
+    public void addCUDA() throws OrtException {
+        super.addCUDA();
+        record("cuda");
+    }
+
+    @Override
+    public void addCUDA(int deviceNum) throws OrtException {
+        super.addCUDA(deviceNum);
+        record("cuda", deviceNum);
+    }
+
+    @Override
+    public void addCUDA(OrtCUDAProviderOptions cudaOpts) throws OrtException {
+        super.addCUDA(cudaOpts);
+        record("cuda", cudaOpts.getOptionsString());
+    }
+
+    @Override
+    public void addROCM() throws OrtException {
+        super.addROCM();
+        record("rocm");
+    }
+
+    @Override
+    public void addROCM(int deviceNum) throws OrtException {
+        super.addROCM(deviceNum);
+        record("rocm", deviceNum);
+    }
+
+    @Override
+    public void addCPU(boolean useArena) throws OrtException {
+        super.addCPU(useArena);
+        record("cpu", useArena);
+    }
+
+    @Override
+    public void addDnnl(boolean useArena) throws OrtException {
+        super.addDnnl(useArena);
+        record("dnnl", useArena);
+    }
+
+    @Override
+    public void addOpenVINO(String deviceId) throws OrtException {
+        super.addOpenVINO(deviceId);
+        record("openVINO", deviceId);
+    }
+
+    @Override
+    public void addTensorrt(int deviceNum) throws OrtException {
+        super.addTensorrt(deviceNum);
+        record("tensorrt", deviceNum);
+    }
+
+    @Override
+    public void addTensorrt(OrtTensorRTProviderOptions tensorRTOpts) throws OrtException {
+        super.addTensorrt(tensorRTOpts);
+        record("tensorrt", tensorRTOpts.getOptionsString());
+    }
+
+    @Override
+    public void addNnapi() throws OrtException {
+        super.addNnapi();
+        record("nnapi");
+    }
+
+    @Override
+    public void addNnapi(EnumSet<NNAPIFlags> flags) throws OrtException {
+        super.addNnapi(flags);
+        record("nnapi", flags);
+    }
+
+    @Override
+    public void addTvm(String settings) throws OrtException {
+        super.addTvm(settings);
+        record("tvm", settings);
+    }
+
+    @Override
+    public void addDirectML(int deviceId) throws OrtException {
+        super.addDirectML(deviceId);
+        record("directML", deviceId);
+    }
+
+    @Override
+    public void addACL(boolean useArena) throws OrtException {
+        super.addACL(useArena);
+        record("acl", useArena);
+    }
+
+    @Override
+    public void addArmNN(boolean useArena) throws OrtException {
+        super.addArmNN(useArena);
+        record("armNN", useArena);
+    }
+
+    @Override
+    public void addCoreML() throws OrtException {
+        super.addCoreML();
+        record("coreML");
+    }
+
+    @Override
+    public void addCoreML(EnumSet<CoreMLFlags> flags) throws OrtException {
+        super.addCoreML(flags);
+        record("coreML", flags);
+    }
+
+    @Override
+    public void addXnnpack(Map<String, String> providerOptions) throws OrtException {
+        super.addXnnpack(providerOptions);
+        record("xnnpack", new TreeMap<>(providerOptions));
+    }
+
+    @Override
+    public void addQnn(Map<String, String> providerOptions) throws OrtException {
+        super.addQnn(providerOptions);
+        record("qnn", new TreeMap<>(providerOptions));
+    }
+}
@@ -0,0 +1,85 @@
+package org.pitest.voices;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Limits the sessions Chorus keeps loaded, by count and by estimated size, closing
+ * the least recently used idle sessions when either limit is exceeded. Sessions
+ * in use are never closed, so the limits may be exceeded while they are busy.
+ * Models shared between sessions count towards the size once, but not the count,
+ * and are freed when the last session using them is closed.
+ */
+class SessionBudget {
+
+    private final int maxSessions;
+    private final long maxBytes;
+    private final Collection<EvictableVoiceSession> sessions;
+
+    // running totals, so calls within budget are answered without a lock
+    private final AtomicInteger loadedCount = new AtomicInteger();
+    private final AtomicLong loadedBytes = new AtomicLong();
+
+    /**
+     * @param maxSessions maximum loaded sessions, 0 for no limit
+     * @param maxBytes maximum estimated size of loaded sessions, 0 for no limit
+     * @param sessions live view of the sessions to manage
+     */
+    SessionBudget(int maxSessions, long maxBytes, Collection<EvictableVoiceSession> sessions) {
+        this.maxSessions = maxSessions;
+        this.maxBytes = maxBytes;
+        this.sessions = sessions;
+    }
+
+    void loaded(long bytes) {
+        loadedCount.incrementAndGet();
+        loadedBytes.addAndGet(bytes);
+    }
+
+    void unloaded(long bytes) {
+        loadedCount.decrementAndGet();
+        loadedBytes.addAndGet(-bytes);
+    }
+
+    void sharedLoaded(long bytes) {
+        loadedBytes.addAndGet(bytes);
+    }
+
+    void sharedUnloaded(long bytes) {
+        loadedBytes.addAndGet(-bytes);
+    }
+
+    boolean isOverBudget() {
+        return !withinBudget(loadedCount.get(), loadedBytes.get());
+    }
+
+    void enforce() {
+        if (isOverBudget()) {
+            evictIdle();
+        }
+    }
+
+    private synchronized void evictIdle() {
+        List<EvictableVoiceSession> loaded = sessions.stream()
+                .filter(EvictableVoiceSession::isLoaded)
+                .sorted(Comparator.comparingLong(EvictableVoiceSession::lastUsed))
+                .collect(Collectors.toList());
+
+        // the totals are read after each eviction, as closing a session may also free a shared model
+        for (EvictableVoiceSession candidate : loaded) {
+            if (!isOverBudget()) {
+                return;
+            }
+            candidate.evict();
+        }
+    }
+
+    private boolean withinBudget(int count, long bytes) {
+        return (maxSessions == 0 || count <= maxSessions)
+                && (maxBytes == 0 || bytes <= maxBytes);
+    }
+}
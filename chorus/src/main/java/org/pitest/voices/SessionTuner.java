@@ -0,0 +1,239 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.OrtSession.SessionOptions.ExecutionMode;
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Chooses session settings for a model by timing a fixed phoneme workload against a
+ * small grid of candidates. The fastest candidate is saved, keyed by cpu model and
+ * core count, so each model is only benchmarked once per kind of host.
+ *
+ * Models whose voices share a session, such as kokoro, are not tuned. Settings would be
+ * chosen for one voice then applied by whichever voice happened to load the session.
+ */
+class SessionTuner {
+
+    static final String WORKLOAD = "ðə kwˈɪk bɹˈaʊn fˈɒks dʒˈʌmps ˌəʊvə ðə lˈeɪzi dˈɒɡ, ænd ɹˈʌnz əwˈeɪ ɪntʊ ðə wˈʊdz.";
+
+    private static final int WARM_UPS = 1;
+    private static final int RUNS = 3;
+
+    // saved in place of settings for models that are not tuned
+    private static final String UNTUNED = "shared";
+
+    private final Path file;
+    private final List<SessionTuning> candidates;
+
+    // loaded on first use, guarded by this
+    private Properties results;
+
+    SessionTuner(Path dir, int cores, boolean sharedThreads) {
+        this(dir.resolve(hostKey(cores) + ".properties"), candidates(cores, sharedThreads));
+    }
+
+    SessionTuner(Path file, List<SessionTuning> candidates) {
+        this.file = file;
+        this.candidates = candidates;
+    }
+
+    /**
+     * Settings for a model, benchmarked on first request.
+     * @param id model id
+     * @param sid speaker to benchmark
+     * @param loader creates a session for the model with the given settings, loading
+     *               models through a loader wrapped with candidateLoader
+     * @return fastest settings, or empty if the model uses shared sessions
+     */
+    synchronized Optional<SessionTuning> tuningFor(String id, int sid, Function<SessionTuning, VoiceSession> loader) {
+        String saved = results().getProperty(id);
+        if (UNTUNED.equals(saved)) {
+            return Optional.empty();
+        }
+        if (saved != null) {
+            return Optional.of(SessionTuning.parse(saved));
+        }
+
+        SessionTuning best = null;
+        long bestTime = Long.MAX_VALUE;
+        RuntimeException lastFailure = null;
+        for (SessionTuning candidate : candidates) {
+            try {
+                long time = benchmark(candidate, sid, loader);
+                if (time < bestTime) {
+                    best = candidate;
+                    bestTime = time;
+                }
+            } catch (SharedSessionRequested e) {
+                results.setProperty(id, UNTUNED);
+                save();
+                return Optional.empty();
+            } catch (RuntimeException e) {
+                // some settings are not supported everywhere, skip them
+                lastFailure = e;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("No session settings could be benchmarked for " + id, lastFailure);
+        }
+
+        results.setProperty(id, best.asString());
+        save();
+        return Optional.of(best);
+    }
+
+    /**
+     * Wraps the loader used for candidate sessions, so that models requesting a shared
+     * session are recognised before anything is loaded.
+     * @param loader loader to wrap
+     * @return a loader rejecting shared sessions
+     */
+    static SessionLoader candidateLoader(SessionLoader loader) {
+        return new SessionLoader() {
+            @Override
+            public OrtEnvironment env() {
+                return loader.env();
+            }
+
+            @Override
+            public OrtSession load(String id, Path model) throws OrtException {
+                return loader.load(id, model);
+            }
+
+            @Override
+            public OrtSession.SessionOptions options() {
+                return loader.options();
+            }
+
+            @Override
+            public SharedSession loadShared(String id, Path model) {
+                throw new SharedSessionRequested();
+            }
+        };
+    }
+
+    private static long benchmark(SessionTuning candidate, int sid, Function<SessionTuning, VoiceSession> loader) {
+        try (VoiceSession session = loader.apply(candidate)) {
+            long[] ids = workload(session);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i != WARM_UPS + RUNS; i++) {
+                long start = System.nanoTime();
+                session.sayPhonemes(sid, ids, 1f, ModelParameters.defaultParams());
+                if (i >= WARM_UPS) {
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+            }
+            return best;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // thrown by close
+            throw new RuntimeException(e);
+        }
+    }
+
+    static long[] workload(VoiceSession session) {
+        return WORKLOAD.codePoints()
+                .mapToObj(cp -> session.idForSymbol(new String(Character.toChars(cp))))
+                .filter(id -> id != null)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    static List<SessionTuning> candidates(int cores, boolean sharedThreads) {
+        // threads are set by the shared pool when there is one
+        Set<Integer> threads = new LinkedHashSet<>();
+        if (sharedThreads) {
+            threads.add(0);
+        } else {
+            threads.add(cores);
+            threads.add(Math.max(1, cores / 2));
+            threads.add(Math.max(1, cores / 4));
+        }
+
+        List<SessionTuning> result = new ArrayList<>();
+        for (OptLevel level : List.of(OptLevel.EXTENDED_OPT, OptLevel.ALL_OPT)) {
+            for (int intra : threads) {
+                result.add(new SessionTuning(intra, 0, ExecutionMode.SEQUENTIAL, level));
+            }
+            result.add(new SessionTuning(sharedThreads ? 0 : Math.max(1, cores / 2), sharedThreads ? 0 : 2, ExecutionMode.PARALLEL, level));
+        }
+        return result;
+    }
+
+    private Properties results() {
+        if (results == null) {
+            results = new Properties();
+            if (Files.exists(file)) {
+                try (InputStream is = Files.newInputStream(file)) {
+                    results.load(is);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return results;
+    }
+
+    private void save() {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), "tuning", ".tmp");
+            try (OutputStream os = Files.newOutputStream(temp)) {
+                results.store(os, "Session settings for " + file.getFileName());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String hostKey(int cores) {
+        return (cpuModel() + "-" + cores).replaceAll("[^A-Za-z0-9._-]+", "_");
+    }
+
+    static String cpuModel() {
+        Path cpuInfo = Path.of("/proc/cpuinfo");
+        if (Files.isReadable(cpuInfo)) {
+            try (Stream<String> lines = Files.lines(cpuInfo)) {
+                Optional<String> model = lines.filter(l -> l.startsWith("model name"))
+                        .map(l -> l.substring(l.indexOf(':') + 1).trim())
+                        .findFirst();
+                if (model.isPresent()) {
+                    return model.get();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                // fall back to less specific descriptions
+            }
+        }
+        String identifier = System.getenv("PROCESSOR_IDENTIFIER");
+        if (identifier != null) {
+            return identifier;
+        }
+        return System.getProperty("os.name") + "-" + System.getProperty("os.arch");
+    }
+
+    private static class SharedSessionRequested extends RuntimeException {
+        SharedSessionRequested() {
+            super("Shared sessions are not tuned", null, false, false);
+        }
+    }
+}
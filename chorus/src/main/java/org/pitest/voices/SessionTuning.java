@@ -0,0 +1,46 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.OrtSession.SessionOptions.ExecutionMode;
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+
+/**
+ * Session settings chosen by the SessionTuner.
+ * @param intraOpThreads threads within each operator, 0 for the ONNX Runtime default
+ * @param interOpThreads threads across operators in parallel mode, 0 for the ONNX Runtime default
+ * @param mode execution mode
+ * @param level graph optimisation level
+ */
+record SessionTuning(int intraOpThreads, int interOpThreads, ExecutionMode mode, OptLevel level) {
+
+    void applyTo(OrtSession.SessionOptions options) {
+        try {
+            if (intraOpThreads != 0) {
+                options.setIntraOpNumThreads(intraOpThreads);
+            }
+            if (interOpThreads != 0) {
+                options.setInterOpNumThreads(interOpThreads);
+            }
+            options.setExecutionMode(mode);
+            options.setOptimizationLevel(level);
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    String asString() {
+        return intraOpThreads + "," + interOpThreads + "," + mode + "," + level;
+    }
+
+    static SessionTuning parse(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Not a session tuning " + value);
+        }
+        return new SessionTuning(Integer.parseInt(parts[0]),
+                Integer.parseInt(parts[1]),
+                ExecutionMode.valueOf(parts[2]),
+                OptLevel.valueOf(parts[3]));
+    }
+}
@@ -0,0 +1,81 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Loads sessions through another loader, sharing sessions requested with loadShared
+ * through a map owned by the caller, keyed by model file. Loaders given the same map
+ * share sessions, so one Chorus shares models between its voices without sharing them
+ * with any other Chorus. If a budget is given, each shared model is counted against it
+ * once, from when it is loaded until its last user releases it.
+ */
+class SharingSessionLoader implements SessionLoader {
+
+    private final SessionLoader delegate;
+    // guarded by itself
+    private final Map<Path, SharedSession> shared;
+    // null if loaded models are not limited
+    private final SessionBudget budget;
+
+    SharingSessionLoader(SessionLoader delegate, Map<Path, SharedSession> shared) {
+        this(delegate, shared, null);
+    }
+
+    SharingSessionLoader(SessionLoader delegate, Map<Path, SharedSession> shared, SessionBudget budget) {
+        this.delegate = delegate;
+        this.shared = shared;
+        this.budget = budget;
+    }
+
+    @Override
+    public OrtEnvironment env() {
+        return delegate.env();
+    }
+
+    @Override
+    public OrtSession load(String id, Path model) throws OrtException {
+        return delegate.load(id, model);
+    }
+
+    @Override
+    public OrtSession.SessionOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public SharedSession loadShared(String id, Path model) throws OrtException {
+        Path key = model.toAbsolutePath().normalize();
+        synchronized (shared) {
+            SharedSession session = shared.get(key);
+            if (session != null && session.acquire()) {
+                return session;
+            }
+            session = budget == null ? delegate.loadShared(id, model) : counted(id, model);
+            shared.put(key, session);
+            return session;
+        }
+    }
+
+    private SharedSession counted(String id, Path model) throws OrtException {
+        long bytes = size(model);
+        SharedSession session = new SharedSession(delegate.load(id, model), () -> budget.sharedUnloaded(bytes));
+        budget.sharedLoaded(bytes);
+        return session;
+    }
+
+    private static long size(Path model) {
+        try {
+            return Files.size(model);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
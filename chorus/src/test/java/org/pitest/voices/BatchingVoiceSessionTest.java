@@ -0,0 +1,200 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.audio.Audio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchingVoiceSessionTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    RecordingSession delegate = new RecordingSession();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void batchesConcurrentRequests() throws Exception {
+        var underTest = new BatchingVoiceSession(delegate, WINDOW, 4);
+
+        List<Future<Audio>> results = new ArrayList<>();
+        for (int i = 0; i != 4; i++) {
+            results.add(pool.submit(() -> say(underTest, 10)));
+        }
+        for (Future<Audio> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS).length()).isEqualTo(10);
+        }
+
+        assertThat(delegate.batchSizes).containsExactly(4);
+    }
+
+    @Test
+    void returnsEachCallerItsOwnAudio() throws Exception {
+        var underTest = new BatchingVoiceSession(delegate, WINDOW, 3);
+
+        Future<Audio> a = pool.submit(() -> say(underTest, 20));
+        Future<Audio> b = pool.submit(() -> say(underTest, 21));
+        Future<Audio> c = pool.submit(() -> say(underTest, 22));
+
+        assertThat(a.get(10, TimeUnit.SECONDS).length()).isEqualTo(20);
+        assertThat(b.get(10, TimeUnit.SECONDS).length()).isEqualTo(21);
+        assertThat(c.get(10, TimeUnit.SECONDS).length()).isEqualTo(22);
+    }
+
+    @Test
+    void rendersAloneOnceWindowPasses() {
+        var underTest = new BatchingVoiceSession(delegate, TimeUnit.MILLISECONDS.toNanos(5), 8);
+
+        assertThat(say(underTest, 7).length()).isEqualTo(7);
+        assertThat(delegate.batchSizes).containsExactly(1);
+    }
+
+    @Test
+    void batchesSimilarLengthsTogether() {
+        var underTest = new BatchingVoiceSession(delegate, WINDOW, 8);
+
+        var batches = underTest.group(pending(100, 10, 104, 11, 12, 300));
+
+        assertThat(batches).extracting(b -> lengths(b))
+                .containsExactly(List.of(10, 11, 12), List.of(100, 104), List.of(300));
+    }
+
+    @Test
+    void limitsBatchSize() {
+        var underTest = new BatchingVoiceSession(delegate, WINDOW, 2);
+
+        var batches = underTest.group(pending(10, 10, 10, 10, 10));
+
+        assertThat(batches).extracting(List::size).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void sharesFailuresWithTheBatch() throws Exception {
+        delegate.fail = true;
+        var underTest = new BatchingVoiceSession(delegate, WINDOW, 2);
+
+        Future<Audio> a = pool.submit(() -> say(underTest, 10));
+        Future<Audio> b = pool.submit(() -> say(underTest, 10));
+
+        assertThatThrownBy(() -> a.get(10, TimeUnit.SECONDS)).hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> b.get(10, TimeUnit.SECONDS)).hasRootCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void doesNotQueueCancelledRequests() {
+        var underTest = new BatchingVoiceSession(delegate, WINDOW, 2);
+        var cancellation = Cancellation.create();
+        cancellation.cancel();
+
+        assertThatThrownBy(() -> cancellation.during(() -> say(underTest, 10)))
+                .isInstanceOf(CancellationException.class);
+        assertThat(delegate.batchSizes).isEmpty();
+    }
+
+    @Test
+    void rendersEachGroupOnOneOfItsOwnCallers() throws Exception {
+        var underTest = new BatchingVoiceSession(delegate, WINDOW, 4);
+
+        Future<Audio> short1 = pool.submit(() -> say(underTest, 10));
+        Future<Audio> short2 = pool.submit(() -> say(underTest, 11));
+        Future<Audio> long1 = pool.submit(() -> say(underTest, 100));
+        Future<Audio> long2 = pool.submit(() -> say(underTest, 101));
+        for (Future<Audio> each : List.of(short1, short2, long1, long2)) {
+            each.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(delegate.batchSizes).containsExactlyInAnyOrder(2, 2);
+        assertThat(delegate.threads).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void cancelledCallersStopWaitingAndLeaveTheirBatch() throws Exception {
+        var underTest = new BatchingVoiceSession(delegate, TimeUnit.SECONDS.toNanos(2), 4);
+        var cancellation = Cancellation.create();
+
+        Future<Audio> first = pool.submit(() -> say(underTest, 10));
+        Thread.sleep(50);
+        Future<Audio> second = pool.submit(() -> cancellation.during(() -> say(underTest, 10)));
+        Thread.sleep(50);
+        cancellation.cancel();
+
+        assertThatThrownBy(() -> second.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(CancellationException.class);
+        assertThat(first).isNotDone();
+
+        assertThat(first.get(10, TimeUnit.SECONDS).length()).isEqualTo(10);
+        assertThat(delegate.batchSizes).containsExactly(1);
+    }
+
+    private static Audio say(VoiceSession session, int length) {
+        return session.sayPhonemes(-1, new long[length], 1, ModelParameters.defaultParams());
+    }
+
+    private static List<BatchingVoiceSession.Pending> pending(int... lengths) {
+        List<BatchingVoiceSession.Pending> pending = new ArrayList<>();
+        for (int length : lengths) {
+            pending.add(new BatchingVoiceSession.Pending(
+                    new PhonemeRequest(-1, new long[length], 1, ModelParameters.defaultParams()), Cancellation.none()));
+        }
+        return pending;
+    }
+
+    private static List<Integer> lengths(List<BatchingVoiceSession.Pending> batch) {
+        return batch.stream().map(p -> p.request.ids().length).collect(Collectors.toList());
+    }
+
+    private static class RecordingSession implements VoiceSession {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        volatile boolean fail;
+
+        @Override
+        public Long idForSymbol(String phoneme) {
+            return null;
+        }
+
+        @Override
+        public ModelConfig config() {
+            return null;
+        }
+
+        @Override
+        public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+            return new Audio(new float[phoneme_ids.length], 22050);
+        }
+
+        @Override
+        public List<Audio> sayBatch(List<PhonemeRequest> requests) {
+            if (fail) {
+                throw new IllegalStateException("boom");
+            }
+            batchSizes.add(requests.size());
+            threads.add(Thread.currentThread());
+            return VoiceSession.super.sayBatch(requests);
+        }
+
+        @Override
+        public boolean supportsBatching() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -1,12 +1,28 @@
 package org.pitest.voices;
 
+import ai.onnxruntime.OrtException;
 import org.junit.jupiter.api.Test;
 import org.pitest.voices.alba.Alba;
+import org.pitest.voices.g2p.core.PiperPhonemizer;
 import org.pitest.voices.g2p.core.dictionary.Dictionaries;
 import org.pitest.voices.g2p.core.tracing.LoggingTrace;
+import org.pitest.voices.g2p.core.tracing.Trace;
 import org.pitest.voices.audio.Audio;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
 import static org.pitest.voices.ChorusConfig.chorusConfig;
 import static org.pitest.voices.util.Play.play;
 
@@ -54,4 +70,152 @@ class ChorusTest {
         }
     }
 
+    @Test
+    void servesConcurrentCallers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (Chorus chorus = new Chorus(chorusConfig(Dictionaries.empty()).withSessionsPerModel(2))) {
+            List<Future<Audio>> results = new ArrayList<>();
+            for (int i = 0; i != 8; i++) {
+                results.add(pool.submit(() -> chorus.voice(Alba.albaMedium())
+                        .say("The cat sat on the mat. It was happy.")));
+            }
+
+            for (Future<Audio> result : results) {
+                assertThat(result.get().length()).isGreaterThan(0);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void bucketedInputRendersTheSameLengthOfAudio() {
+        try (Chorus chorus = new Chorus(chorusConfig(Dictionaries.empty()))) {
+            Voice plain = chorus.voice(Alba.albaMedium());
+            Voice bucketed = plain.withModelParameters(ModelParameters.defaultParams()
+                    .withInputBuckets(InputBuckets.of(256)));
+
+            // durations are sampled with noise, so compare the mean of several renders
+            double plainLength = meanLength(plain, "Hi.");
+            double bucketedLength = meanLength(bucketed, "Hi.");
+
+            // unmasked padding would render many times the audio of so short an input
+            assertThat(bucketedLength).isCloseTo(plainLength, withinPercentage(20));
+        }
+    }
+
+    @Test
+    void batchedSentencesRenderTheSameLengthOfAudioAsSingleRuns() throws Exception {
+        List<String> sentences = List.of("The cat sat on the mat.", "A dog ran in the park.", "We met at the old bridge.");
+        ExecutorService pool = Executors.newFixedThreadPool(sentences.size());
+        try (Chorus single = new Chorus(chorusConfig(Dictionaries.empty()));
+             Chorus batched = new Chorus(chorusConfig(Dictionaries.empty())
+                     .withBatching(Duration.ofSeconds(2), sentences.size()))) {
+            Voice singleVoice = single.voice(Alba.albaMedium());
+            Voice batchedVoice = batched.voice(Alba.albaMedium());
+
+            double[] singleLengths = new double[sentences.size()];
+            double[] batchedLengths = new double[sentences.size()];
+            for (int round = 0; round != 5; round++) {
+                List<Future<Audio>> results = new ArrayList<>();
+                for (String sentence : sentences) {
+                    results.add(pool.submit(() -> batchedVoice.say(sentence)));
+                }
+                for (int i = 0; i != sentences.size(); i++) {
+                    singleLengths[i] += singleVoice.say(sentences.get(i)).length() / 5.0;
+                    batchedLengths[i] += results.get(i).get(60, TimeUnit.SECONDS).length() / 5.0;
+                }
+            }
+
+            // durations are sampled with noise, so compare means rather than exact lengths
+            for (int i = 0; i != sentences.size(); i++) {
+                assertThat(batchedLengths[i]).isCloseTo(singleLengths[i], withinPercentage(20));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void preloadsVoices() throws Exception {
+        var model = new CountingModel(Alba.albaMedium());
+        try (Chorus chorus = new Chorus(config)) {
+            assertThat(model.sessions).hasValue(0);
+
+            chorus.preload(List.of(model)).get(60, TimeUnit.SECONDS);
+
+            assertThat(model.sessions).hasValue(1);
+            Audio audio = chorus.voice(model).say("Ready.");
+            assertThat(audio.length()).isGreaterThan(0);
+            assertThat(model.sessions).hasValue(1);
+        }
+    }
+
+    private static double meanLength(Voice voice, String text) {
+        return IntStream.range(0, 5)
+                .map(i -> voice.say(text).length())
+                .average()
+                .orElseThrow();
+    }
+
+    // counts the sessions Chorus loads for a model
+    private static class CountingModel implements Model {
+        final AtomicInteger sessions = new AtomicInteger();
+        private final Model model;
+
+        CountingModel(Model model) {
+            this.model = model;
+        }
+
+        @Override
+        public String id() {
+            return model.id();
+        }
+
+        @Override
+        public int sid() {
+            return model.sid();
+        }
+
+        @Override
+        public Language language() {
+            return model.language();
+        }
+
+        @Override
+        public Model withLanguage(Language lang) {
+            return new CountingModel(model.withLanguage(lang));
+        }
+
+        @Override
+        public byte[] asBytes(Path cacheBase) throws IOException {
+            return model.asBytes(cacheBase);
+        }
+
+        @Override
+        public Path asPath(Path cacheBase) throws IOException {
+            return model.asPath(cacheBase);
+        }
+
+        @Override
+        public ModelConfig resolveConfig(Path cacheBase) throws IOException {
+            return model.resolveConfig(cacheBase);
+        }
+
+        @Override
+        public float defaultGain() {
+            return model.defaultGain();
+        }
+
+        @Override
+        public Voice createVoice(PiperPhonemizer phonemizer, Trace trace, VoiceSession session, float gain) {
+            return model.createVoice(phonemizer, trace, session, gain);
+        }
+
+        @Override
+        public VoiceSession createSession(SessionLoader loader, Path base) throws OrtException, IOException {
+            sessions.incrementAndGet();
+            return model.createSession(loader, base);
+        }
+    }
 }
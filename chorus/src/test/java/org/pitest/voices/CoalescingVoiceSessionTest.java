@@ -0,0 +1,178 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.audio.Audio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoalescingVoiceSessionTest {
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger renders = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void rendersIdenticalConcurrentRequestsOnce() throws Exception {
+        var underTest = new CoalescingVoiceSession(new BlockingSession(() -> Audio.silence(0)));
+
+        Future<Audio> first = pool.submit(() -> say(underTest, 1, 2, 3));
+        started.await();
+        List<Future<Audio>> others = new ArrayList<>();
+        for (int i = 0; i != 3; i++) {
+            others.add(pool.submit(() -> say(underTest, 1, 2, 3)));
+        }
+        awaitWaiting(underTest);
+        release.countDown();
+
+        Audio audio = first.get(10, TimeUnit.SECONDS);
+        for (Future<Audio> other : others) {
+            assertThat(other.get(10, TimeUnit.SECONDS)).isSameAs(audio);
+        }
+        assertThat(renders).hasValue(1);
+        assertThat(underTest.inFlight()).isZero();
+    }
+
+    @Test
+    void rendersDifferentRequestsSeparately() {
+        release.countDown();
+        var underTest = new CoalescingVoiceSession(new BlockingSession(() -> Audio.silence(0)));
+
+        say(underTest, 1, 2);
+        say(underTest, 1, 3);
+        underTest.sayPhonemes(-1, new long[]{1, 2}, 2, ModelParameters.defaultParams());
+        underTest.sayPhonemes(-1, new long[]{1, 2}, 1, ModelParameters.defaultParams().withSpeed(1.5f));
+
+        assertThat(renders).hasValue(4);
+    }
+
+    @Test
+    void keepsNothingOnceRendered() {
+        release.countDown();
+        var underTest = new CoalescingVoiceSession(new BlockingSession(() -> Audio.silence(0)));
+
+        say(underTest, 1, 2);
+        say(underTest, 1, 2);
+
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    void sharesFailures() throws Exception {
+        var underTest = new CoalescingVoiceSession(new BlockingSession(() -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        Future<Audio> first = pool.submit(() -> say(underTest, 1));
+        started.await();
+        Future<Audio> second = pool.submit(() -> say(underTest, 1));
+        awaitWaiting(underTest);
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS)).hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> second.get(10, TimeUnit.SECONDS)).hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    void rendersAgainWhenOnlyTheOtherCallerWasCancelled() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        var underTest = new CoalescingVoiceSession(new BlockingSession(() -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new CancellationException();
+            }
+            return Audio.silence(0);
+        }));
+
+        Future<Audio> first = pool.submit(() -> say(underTest, 1));
+        started.await();
+        Future<Audio> second = pool.submit(() -> say(underTest, 1));
+        awaitWaiting(underTest);
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(CancellationException.class);
+        assertThat(second.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    void stopsWaitingWhenCancelled() throws Exception {
+        var underTest = new CoalescingVoiceSession(new BlockingSession(() -> Audio.silence(0)));
+        var cancellation = Cancellation.create();
+
+        Future<Audio> first = pool.submit(() -> say(underTest, 1));
+        started.await();
+        Future<Audio> second = pool.submit(() -> cancellation.during(() -> say(underTest, 1)));
+        awaitWaiting(underTest);
+        cancellation.cancel();
+
+        assertThatThrownBy(() -> second.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(CancellationException.class);
+        assertThat(first).isNotDone();
+
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(renders).hasValue(1);
+    }
+
+    private static Audio say(VoiceSession session, long... ids) {
+        return session.sayPhonemes(-1, ids, 1, ModelParameters.defaultParams());
+    }
+
+    // waiting callers are invisible, so give them a moment to join the render in progress
+    private static void awaitWaiting(CoalescingVoiceSession session) throws InterruptedException {
+        assertThat(session.inFlight()).isEqualTo(1);
+        Thread.sleep(50);
+    }
+
+    private class BlockingSession implements VoiceSession {
+        private final Supplier<Audio> result;
+
+        BlockingSession(Supplier<Audio> result) {
+            this.result = result;
+        }
+
+        @Override
+        public Long idForSymbol(String phoneme) {
+            return null;
+        }
+
+        @Override
+        public ModelConfig config() {
+            return null;
+        }
+
+        @Override
+        public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+            renders.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result.get();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.audio.Audio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EvictableVoiceSessionTest {
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    List<EvictableVoiceSession> managed = new CopyOnWriteArrayList<>();
+    List<FakeSession> created = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void staysLoadedWithinBudget() {
+        var budget = new SessionBudget(2, 0, managed);
+        var a = evictable(budget, 10);
+        var b = evictable(budget, 10);
+
+        say(a);
+        say(b);
+
+        assertThat(a.isLoaded()).isTrue();
+        assertThat(b.isLoaded()).isTrue();
+        assertThat(created).hasSize(2);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverCount() {
+        var budget = new SessionBudget(2, 0, managed);
+        var a = evictable(budget, 10);
+        var b = evictable(budget, 10);
+        say(a);
+        say(b);
+        say(a);
+
+        var c = evictable(budget, 10);
+        budget.enforce();
+
+        assertThat(b.isLoaded()).isFalse();
+        assertThat(a.isLoaded()).isTrue();
+        assertThat(c.isLoaded()).isTrue();
+        assertThat(created.get(1).closed).isTrue();
+    }
+
+    @Test
+    void evictsUntilWithinByteBudget() {
+        var budget = new SessionBudget(0, 100, managed);
+        var a = evictable(budget, 40);
+        var b = evictable(budget, 40);
+        var c = evictable(budget, 80);
+        budget.enforce();
+
+        assertThat(a.isLoaded()).isFalse();
+        assertThat(b.isLoaded()).isFalse();
+        assertThat(c.isLoaded()).isTrue();
+    }
+
+    @Test
+    void reloadsEvictedSessionsOnNextUse() {
+        var budget = new SessionBudget(1, 0, managed);
+        var a = evictable(budget, 10);
+        var b = evictable(budget, 10);
+        budget.enforce();
+        assertThat(a.isLoaded()).isFalse();
+
+        say(a);
+
+        assertThat(a.isLoaded()).isTrue();
+        assertThat(b.isLoaded()).isFalse();
+        assertThat(created).hasSize(3);
+    }
+
+    @Test
+    void answersSymbolLookupsWithoutReloading() {
+        var budget = new SessionBudget(1, 0, managed);
+        var a = evictable(budget, 10);
+        evictable(budget, 10);
+        budget.enforce();
+
+        assertThat(a.idForSymbol("a")).isEqualTo(1L);
+        assertThat(a.isLoaded()).isFalse();
+    }
+
+    @Test
+    void neverClosesSessionsInUse() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        var budget = new SessionBudget(1, 0, managed);
+        var busy = new EvictableVoiceSession(() -> blockingSession(started, release), 10, budget);
+        managed.add(busy);
+
+        Future<?> call = pool.submit(() -> say(busy));
+        started.await();
+        var idle = evictable(budget, 10);
+        budget.enforce();
+
+        // busy is least recently used, but only the idle session can be closed
+        assertThat(busy.isLoaded()).isTrue();
+        assertThat(idle.isLoaded()).isFalse();
+
+        release.countDown();
+        call.get(10, TimeUnit.SECONDS);
+        assertThat(busy.isLoaded()).isTrue();
+    }
+
+    @Test
+    void tracksLoadedTotalsThroughEvictionAndReload() {
+        var budget = new SessionBudget(1, 0, managed);
+        var a = evictable(budget, 10);
+        assertThat(budget.isOverBudget()).isFalse();
+
+        var b = evictable(budget, 10);
+        assertThat(budget.isOverBudget()).isTrue();
+
+        budget.enforce();
+        assertThat(budget.isOverBudget()).isFalse();
+
+        say(a);
+        assertThat(budget.isOverBudget()).isFalse();
+        assertThat(b.isLoaded()).isFalse();
+    }
+
+    @Test
+    void canBeInspectedAndEvictedWhileReloading() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        var budget = new SessionBudget(0, 0, managed);
+        List<Integer> loads = new CopyOnWriteArrayList<>();
+        var underTest = new EvictableVoiceSession(() -> {
+            if (!loads.isEmpty()) {
+                loading.countDown();
+                await(release);
+            }
+            loads.add(1);
+            return create();
+        }, 10, budget);
+        managed.add(underTest);
+        underTest.evict();
+
+        Future<?> call = pool.submit(() -> say(underTest));
+        loading.await();
+
+        // the budget scan reads these, so they must not wait for the load
+        Future<Boolean> scanned = pool.submit(() -> underTest.lastUsed() != 0 && (underTest.isLoaded() || underTest.evict()));
+        assertThat(scanned.get(1, TimeUnit.SECONDS)).isFalse();
+
+        release.countDown();
+        call.get(10, TimeUnit.SECONDS);
+        assertThat(underTest.isLoaded()).isTrue();
+        assertThat(loads).hasSize(2);
+    }
+
+    @Test
+    void closesLoadedSession() {
+        var budget = new SessionBudget(0, 0, managed);
+        var a = evictable(budget, 10);
+        a.close();
+        assertThat(a.isLoaded()).isFalse();
+        assertThat(created.get(0).closed).isTrue();
+    }
+
+    private EvictableVoiceSession evictable(SessionBudget budget, long bytes) {
+        var session = new EvictableVoiceSession(this::create, bytes, budget);
+        managed.add(session);
+        return session;
+    }
+
+    private static void say(VoiceSession session) {
+        session.sayPhonemes(-1, new long[0], 1, ModelParameters.defaultParams());
+    }
+
+    private synchronized VoiceSession create() {
+        FakeSession session = new FakeSession();
+        created.add(session);
+        return session;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private VoiceSession blockingSession(CountDownLatch started, CountDownLatch release) {
+        return new FakeSession() {
+            @Override
+            public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Audio.silence(0);
+            }
+        };
+    }
+
+    private static class FakeSession implements VoiceSession {
+        volatile boolean closed;
+
+        @Override
+        public Long idForSymbol(String phoneme) {
+            return config().phonemeIdMap().get(phoneme);
+        }
+
+        @Override
+        public ModelConfig config() {
+            return new ModelConfig(22050, Map.of("a", 1L));
+        }
+
+        @Override
+        public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+            return Audio.silence(0);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.pitest.voices.alba.Alba;
+import org.pitest.voices.g2p.core.dictionary.Dictionaries;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.pitest.voices.ChorusConfig.chorusConfig;
+
+/**
+ * Long running, so only run when -Dsoak=true. Leaked tensors show up as resident
+ * memory growing with the number of calls.
+ */
+@EnabledOnOs(OS.LINUX)
+@EnabledIfSystemProperty(named = "soak", matches = "true")
+class NativeMemorySoakTest {
+
+    private static final int WARM_UP = 1_000;
+    private static final int CALLS = 100_000;
+    private static final long ALLOWED_GROWTH_KB = 64 * 1024;
+
+    @Test
+    void nativeMemoryStaysFlat() throws IOException {
+        try (Chorus chorus = new Chorus(chorusConfig(Dictionaries.empty()))) {
+            Voice voice = chorus.voice(Alba.albaMedium());
+            for (int i = 0; i != WARM_UP; i++) {
+                voice.say("Hi.");
+            }
+            long before = residentKb();
+
+            for (int i = 0; i != CALLS; i++) {
+                voice.say("Hi.");
+            }
+            System.gc();
+
+            assertThat(residentKb() - before).isLessThan(ALLOWED_GROWTH_KB);
+        }
+    }
+
+    private static long residentKb() throws IOException {
+        return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                .filter(l -> l.startsWith("VmRSS:"))
+                .map(l -> l.replaceAll("[^0-9]", ""))
+                .mapToLong(Long::parseLong)
+                .findFirst()
+                .orElseThrow();
+    }
+}
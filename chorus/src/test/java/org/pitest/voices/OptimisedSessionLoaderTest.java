@@ -0,0 +1,193 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OptimisedSessionLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    OrtEnvironment env = OrtEnvironment.getEnvironment();
+
+    @Test
+    void keysAreStable() throws Exception {
+        Path model = model("abc");
+        assertThat(OptimisedSessionLoader.key("a", model, "1.20.0", "opts"))
+                .isEqualTo(OptimisedSessionLoader.key("a", model, "1.20.0", "opts"));
+    }
+
+    @Test
+    void keyChangesWithModelId() throws Exception {
+        Path model = model("abc");
+        assertThat(OptimisedSessionLoader.key("a", model, "1.20.0", "opts"))
+                .isNotEqualTo(OptimisedSessionLoader.key("b", model, "1.20.0", "opts"));
+    }
+
+    @Test
+    void keyChangesWithOrtVersion() throws Exception {
+        Path model = model("abc");
+        assertThat(OptimisedSessionLoader.key("a", model, "1.20.0", "opts"))
+                .isNotEqualTo(OptimisedSessionLoader.key("a", model, "1.21.0", "opts"));
+    }
+
+    @Test
+    void keyChangesWithOptions() throws Exception {
+        Path model = model("abc");
+        assertThat(OptimisedSessionLoader.key("a", model, "1.20.0", "opts"))
+                .isNotEqualTo(OptimisedSessionLoader.key("a", model, "1.20.0", "other"));
+    }
+
+    @Test
+    void keyChangesWhenModelReplaced() throws Exception {
+        Path model = model("abc");
+        String before = OptimisedSessionLoader.key("a", model, "1.20.0", "opts");
+        Files.writeString(model, "abcd");
+        assertThat(OptimisedSessionLoader.key("a", model, "1.20.0", "opts")).isNotEqualTo(before);
+    }
+
+    @Test
+    void recordsOptionsThatChangeTheGraph() throws Exception {
+        try (var a = new RecordingSessionOptions(); var b = new RecordingSessionOptions()) {
+            a.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.BASIC_OPT);
+            b.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            assertThat(a.description()).isNotEqualTo(b.description());
+        }
+    }
+
+    @Test
+    void ignoresOptionsThatDoNotChangeTheGraph() throws Exception {
+        try (var a = new RecordingSessionOptions(); var b = new RecordingSessionOptions()) {
+            b.setIntraOpNumThreads(2);
+            b.setLoggerId("test");
+            assertThat(a.description()).isEqualTo(b.description());
+        }
+    }
+
+    @Test
+    void recordsConfigEntries() throws Exception {
+        try (var a = new RecordingSessionOptions(); var b = new RecordingSessionOptions()) {
+            b.addConfigEntry("session.disable_prepacking", "1");
+            assertThat(a.description()).isNotEqualTo(b.description());
+        }
+    }
+
+    @Test
+    void savesOptimisedGraphAndLoadsItLater() throws Exception {
+        Path model = TinyModel.write(dir.resolve("tiny.onnx"));
+        var underTest = new OptimisedSessionLoader(env, dir.resolve("optimised"), o -> {});
+
+        try (OrtSession session = underTest.load("tiny", model)) {
+            assertThat(run(session)).containsExactly(2, 4);
+        }
+        Path saved = onlyGraph();
+        FileTime written = Files.getLastModifiedTime(saved);
+
+        try (OrtSession session = underTest.load("tiny", model)) {
+            assertThat(run(session)).containsExactly(2, 4);
+        }
+        assertThat(onlyGraph()).isEqualTo(saved);
+        assertThat(Files.getLastModifiedTime(saved)).isEqualTo(written);
+    }
+
+    @Test
+    void loadsModelWhenSavedGraphIsDamaged() throws Exception {
+        Path model = TinyModel.write(dir.resolve("tiny.onnx"));
+        var underTest = new OptimisedSessionLoader(env, dir.resolve("optimised"), o -> {});
+        underTest.load("tiny", model).close();
+        Path saved = onlyGraph();
+        Files.writeString(saved, "not a model");
+
+        try (OrtSession session = underTest.load("tiny", model)) {
+            assertThat(run(session)).containsExactly(2, 4);
+        }
+        assertThat(saved).doesNotExist();
+
+        underTest.load("tiny", model).close();
+        assertThat(saved).exists();
+    }
+
+    @Test
+    void loadsModelWhenCacheCannotBeWritten() throws Exception {
+        Path model = TinyModel.write(dir.resolve("tiny.onnx"));
+        Path notADirectory = Files.writeString(dir.resolve("optimised"), "");
+        var underTest = new OptimisedSessionLoader(env, notADirectory, o -> {});
+
+        try (OrtSession session = underTest.load("tiny", model)) {
+            assertThat(run(session)).containsExactly(2, 4);
+        }
+    }
+
+    @Test
+    void keepsGraphsSavedWithOtherOptions() throws Exception {
+        Path model = TinyModel.write(dir.resolve("tiny.onnx"));
+        new OptimisedSessionLoader(env, dir.resolve("optimised"), o -> {}).load("tiny", model).close();
+        new OptimisedSessionLoader(env, dir.resolve("optimised"), o -> setLevel(o, OrtSession.SessionOptions.OptLevel.BASIC_OPT))
+                .load("tiny", model).close();
+
+        assertThat(graphs()).hasSize(2);
+    }
+
+    @Test
+    void removesGraphsOfReplacedModels() throws Exception {
+        Path model = TinyModel.write(dir.resolve("tiny.onnx"));
+        var underTest = new OptimisedSessionLoader(env, dir.resolve("optimised"), o -> {});
+        underTest.load("tiny", model).close();
+        Path old = onlyGraph();
+
+        Files.setLastModifiedTime(model, FileTime.fromMillis(Files.getLastModifiedTime(model).toMillis() + 1000));
+        underTest.load("tiny", model).close();
+
+        assertThat(old).doesNotExist();
+        assertThat(old.getParent()).doesNotExist();
+        assertThat(onlyGraph()).isNotEqualTo(old);
+    }
+
+    private static void setLevel(OrtSession.SessionOptions options, OrtSession.SessionOptions.OptLevel level) {
+        try {
+            options.setOptimizationLevel(level);
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Path onlyGraph() throws Exception {
+        List<Path> graphs = graphs();
+        assertThat(graphs).hasSize(1);
+        return graphs.get(0);
+    }
+
+    private List<Path> graphs() throws Exception {
+        try (Stream<Path> files = Files.walk(dir.resolve("optimised").resolve("tiny"))) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private float[] run(OrtSession session) throws Exception {
+        try (OnnxTensor input = OnnxTensor.createTensor(env, new float[]{1, 2});
+             OrtSession.Result result = session.run(Map.of("x", input))) {
+            return (float[]) result.get(0).getValue();
+        }
+    }
+
+    private Path model(String content) throws Exception {
+        Path model = dir.resolve("model.onnx");
+        Files.writeString(model, content);
+        Files.setLastModifiedTime(model, FileTime.fromMillis(1000));
+        return model;
+    }
+}
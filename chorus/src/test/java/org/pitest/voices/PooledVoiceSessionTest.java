@@ -0,0 +1,151 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.audio.Audio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledVoiceSessionTest {
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<FakeSession> sessions = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void createsSessionsOnlyWhenNeeded() {
+        var underTest = new PooledVoiceSession(this::create, 4);
+        for (int i = 0; i != 10; i++) {
+            underTest.sayPhonemes(-1, new long[0], 1, ModelParameters.defaultParams());
+        }
+        assertThat(underTest.created()).isEqualTo(1);
+    }
+
+    @Test
+    void neverUsesASessionConcurrently() throws Exception {
+        var underTest = new PooledVoiceSession(this::create, 3);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i != 200; i++) {
+            futures.add(pool.submit(() -> underTest.sayPhonemes(-1, new long[0], 1, ModelParameters.defaultParams())));
+        }
+        for (Future<?> f : futures) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(underTest.created()).isBetween(1, 3);
+        assertThat(sessions).allSatisfy(s -> assertThat(s.peak.get()).isEqualTo(1));
+        assertThat(sessions.stream().mapToInt(s -> s.calls.get()).sum()).isEqualTo(200);
+    }
+
+    @Test
+    void waitsForSessionWhenPoolExhausted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        var underTest = new PooledVoiceSession(() -> blockingSession(started, release), 1);
+
+        Future<?> first = pool.submit(() -> underTest.sayPhonemes(-1, new long[0], 1, ModelParameters.defaultParams()));
+        started.await();
+        Future<?> second = pool.submit(() -> underTest.sayPhonemes(-1, new long[0], 1, ModelParameters.defaultParams()));
+
+        Thread.sleep(50);
+        assertThat(second).isNotDone();
+
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void closesEverySession() throws Exception {
+        var underTest = new PooledVoiceSession(this::create, 3);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i != 50; i++) {
+            futures.add(pool.submit(() -> underTest.sayPhonemes(-1, new long[0], 1, ModelParameters.defaultParams())));
+        }
+        for (Future<?> f : futures) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+
+        underTest.close();
+
+        assertThat(sessions).allSatisfy(s -> assertThat(s.closed).isTrue());
+    }
+
+    @Test
+    void rejectsEmptyPools() {
+        assertThatThrownBy(() -> new PooledVoiceSession(this::create, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private synchronized VoiceSession create() {
+        FakeSession session = new FakeSession();
+        sessions.add(session);
+        return session;
+    }
+
+    private VoiceSession blockingSession(CountDownLatch started, CountDownLatch release) {
+        return new FakeSession() {
+            @Override
+            public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Audio.silence(0);
+            }
+        };
+    }
+
+    private static class FakeSession implements VoiceSession {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean closed;
+
+        @Override
+        public Long idForSymbol(String phoneme) {
+            return null;
+        }
+
+        @Override
+        public ModelConfig config() {
+            return null;
+        }
+
+        @Override
+        public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+            calls.incrementAndGet();
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return Audio.silence(0);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
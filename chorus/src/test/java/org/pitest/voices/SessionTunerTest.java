@@ -0,0 +1,142 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession.SessionOptions.ExecutionMode;
+import ai.onnxruntime.OrtSession.SessionOptions.OptLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pitest.voices.audio.Audio;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionTunerTest {
+
+    @TempDir
+    Path dir;
+
+    SessionTuning slow = new SessionTuning(1, 0, ExecutionMode.SEQUENTIAL, OptLevel.ALL_OPT);
+    SessionTuning fast = new SessionTuning(4, 0, ExecutionMode.SEQUENTIAL, OptLevel.ALL_OPT);
+    SessionTuning broken = new SessionTuning(2, 2, ExecutionMode.PARALLEL, OptLevel.ALL_OPT);
+
+    List<SessionTuning> loaded = new ArrayList<>();
+
+    @Test
+    void choosesFastestSettings() {
+        var underTest = new SessionTuner(dir.resolve("host.properties"), List.of(slow, fast));
+        assertThat(underTest.tuningFor("a", -1, this::load)).contains(fast);
+    }
+
+    @Test
+    void skipsSettingsThatFail() {
+        var underTest = new SessionTuner(dir.resolve("host.properties"), List.of(broken, slow));
+        assertThat(underTest.tuningFor("a", -1, this::load)).contains(slow);
+    }
+
+    @Test
+    void failsWhenNoSettingsWork() {
+        var underTest = new SessionTuner(dir.resolve("host.properties"), List.of(broken));
+        assertThatThrownBy(() -> underTest.tuningFor("a", -1, this::load))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("not supported");
+    }
+
+    @Test
+    void doesNotTuneModelsUsingSharedSessions() {
+        var underTest = new SessionTuner(dir.resolve("host.properties"), List.of(slow, fast));
+        assertThat(underTest.tuningFor("a", -1, this::loadShared)).isEmpty();
+        assertThat(loaded).containsExactly(slow);
+
+        loaded.clear();
+        var reloaded = new SessionTuner(dir.resolve("host.properties"), List.of(slow, fast));
+        assertThat(reloaded.tuningFor("a", -1, this::loadShared)).isEmpty();
+        assertThat(loaded).isEmpty();
+    }
+
+    @Test
+    void reusesSavedResults() {
+        new SessionTuner(dir.resolve("host.properties"), List.of(slow, fast)).tuningFor("a", -1, this::load);
+        loaded.clear();
+
+        var underTest = new SessionTuner(dir.resolve("host.properties"), List.of(slow, fast));
+        assertThat(underTest.tuningFor("a", -1, this::load)).contains(fast);
+        assertThat(loaded).isEmpty();
+    }
+
+    @Test
+    void tunesEachModelSeparately() {
+        var underTest = new SessionTuner(dir.resolve("host.properties"), List.of(slow, fast));
+        underTest.tuningFor("a", -1, this::load);
+        loaded.clear();
+        underTest.tuningFor("b", -1, this::load);
+        assertThat(loaded).containsExactly(slow, fast);
+    }
+
+    @Test
+    void roundTripsSettings() {
+        assertThat(SessionTuning.parse(broken.asString())).isEqualTo(broken);
+    }
+
+    @Test
+    void doesNotTuneThreadsWhenPoolIsShared() {
+        assertThat(SessionTuner.candidates(8, true))
+                .allSatisfy(t -> assertThat(t.intraOpThreads()).isZero());
+        assertThat(SessionTuner.candidates(8, false))
+                .extracting(SessionTuning::intraOpThreads)
+                .contains(8, 4, 2);
+    }
+
+    private VoiceSession load(SessionTuning tuning) {
+        loaded.add(tuning);
+        if (tuning.mode() == ExecutionMode.PARALLEL) {
+            throw new RuntimeException("not supported");
+        }
+        return new TimedSession(tuning == slow ? 20 : 1);
+    }
+
+    private VoiceSession loadShared(SessionTuning tuning) {
+        loaded.add(tuning);
+        try {
+            SessionTuner.candidateLoader(SessionLoader.direct(null, null)).loadShared("shared", dir);
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        }
+        throw new AssertionError("shared sessions should be rejected");
+    }
+
+    private static class TimedSession implements VoiceSession {
+        private final long millis;
+
+        TimedSession(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public Long idForSymbol(String phoneme) {
+            return (long) phoneme.codePointAt(0);
+        }
+
+        @Override
+        public ModelConfig config() {
+            return null;
+        }
+
+        @Override
+        public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Audio.silence(0);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
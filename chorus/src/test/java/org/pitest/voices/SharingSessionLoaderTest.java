@@ -0,0 +1,94 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SharingSessionLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    Path model;
+    OrtEnvironment env = OrtEnvironment.getEnvironment();
+    SessionLoader direct = SessionLoader.direct(env, new OrtSession.SessionOptions());
+
+    @BeforeEach
+    void writeModel() throws Exception {
+        model = TinyModel.write(dir.resolve("tiny.onnx"));
+    }
+
+    @Test
+    void sharesSessionsBetweenLoadersOfOneOwner() throws Exception {
+        Map<Path, SharedSession> shared = new HashMap<>();
+
+        SharedSession a = new SharingSessionLoader(direct, shared).loadShared("tiny", model);
+        SharedSession b = new SharingSessionLoader(direct, shared).loadShared("tiny", model);
+
+        assertThat(b).isSameAs(a);
+        a.release();
+        b.release();
+    }
+
+    @Test
+    void doesNotShareBetweenOwners() throws Exception {
+        SharedSession a = new SharingSessionLoader(direct, new HashMap<>()).loadShared("tiny", model);
+        SharedSession b = new SharingSessionLoader(direct, new HashMap<>()).loadShared("tiny", model);
+
+        assertThat(b).isNotSameAs(a);
+        a.release();
+        b.release();
+    }
+
+    @Test
+    void reloadsOnceLastUserReleases() throws Exception {
+        var underTest = new SharingSessionLoader(direct, new HashMap<>());
+
+        SharedSession a = underTest.loadShared("tiny", model);
+        SharedSession b = underTest.loadShared("tiny", model);
+        a.release();
+        b.release();
+        SharedSession c = underTest.loadShared("tiny", model);
+
+        assertThat(c).isNotSameAs(a);
+        c.release();
+    }
+
+    @Test
+    void loadersWithoutAnOwnerDoNotShare() throws Exception {
+        SharedSession a = direct.loadShared("tiny", model);
+        SharedSession b = direct.loadShared("tiny", model);
+
+        assertThat(b).isNotSameAs(a);
+        a.release();
+        b.release();
+    }
+
+    @Test
+    void countsSharedModelsAgainstTheBudgetOnce() throws Exception {
+        var budget = new SessionBudget(0, Files.size(model), List.of());
+        var underTest = new SharingSessionLoader(direct, new HashMap<>(), budget);
+
+        SharedSession a = underTest.loadShared("tiny", model);
+        SharedSession b = underTest.loadShared("tiny", model);
+        assertThat(budget.isOverBudget()).isFalse();
+
+        budget.loaded(1);
+        assertThat(budget.isOverBudget()).isTrue();
+
+        a.release();
+        assertThat(budget.isOverBudget()).isTrue();
+        b.release();
+        assertThat(budget.isOverBudget()).isFalse();
+    }
+}
@@ -0,0 +1,71 @@
+package org.pitest.voices;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a minimal onnx model, y = x + x for a float vector of any length, so tests
+ * can create real sessions without downloading a voice.
+ */
+class TinyModel {
+
+    static Path write(Path file) throws IOException {
+        byte[] tensor = message(
+                varint(1, 1), // float
+                bytes(2, message(bytes(1, message(bytes(2, string("n")))))));
+        byte[] type = message(bytes(1, tensor));
+        byte[] node = message(
+                bytes(1, string("x")),
+                bytes(1, string("x")),
+                bytes(2, string("y")),
+                bytes(4, string("Add")));
+        byte[] graph = message(
+                bytes(1, node),
+                bytes(2, string("tiny")),
+                bytes(11, message(bytes(1, string("x")), bytes(2, type))),
+                bytes(12, message(bytes(1, string("y")), bytes(2, type))));
+        byte[] model = message(
+                varint(1, 8), // ir version
+                bytes(7, graph),
+                bytes(8, message(bytes(1, string("")), varint(2, 13))));
+        return Files.write(file, model);
+    }
+
+    private static byte[] string(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] message(byte[]... fields) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] field : fields) {
+            out.writeBytes(field);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] varint(int field, long value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, (long) field << 3);
+        writeVarint(out, value);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int field, byte[] value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, ((long) field << 3) | 2);
+        writeVarint(out, value.length);
+        out.writeBytes(value);
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -2,6 +2,8 @@ package org.pitest.voices;
 
 import opennlp.tools.sentdetect.SentenceDetectorME;
 import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.util.Span;
+import org.pitest.voices.SentenceMerger.Part;
 import org.pitest.voices.audio.Audio;
 import org.pitest.voices.g2p.core.PiperPhonemizer;
 import org.pitest.voices.g2p.core.tracing.Trace;
@@ -10,8 +12,9 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 /**
@@ -26,7 +29,13 @@ public abstract class AbstractVoice implements Voice {
     private static final String PAUSE_1_SEC = "♣";
     private static final String PAUSE_HALF_SEC = "♠";
 
-    private final static SentenceDetectorME sentenceDetector = loadSentenceDetector();
+    // pause between sentences merged into a single inference
+    private static final int SENTENCE_GAP_BEATS = 1;
+
+    // the model is thread safe, but detectors are not, so each thread gets its own
+    private final static SentenceModel sentenceModel = loadSentenceModel();
+    private final static ThreadLocal<SentenceDetectorME> sentenceDetector =
+            ThreadLocal.withInitial(() -> new SentenceDetectorME(sentenceModel));
 
     protected final VoiceSession session;
     protected final PiperPhonemizer phonemizer;
@@ -36,6 +45,12 @@ public abstract class AbstractVoice implements Voice {
     protected final List<Pause> pauses;
     protected final ModelParameters params;
     protected final float gain;
+    protected final Parallelism parallelism;
+    protected final Cancellation cancellation;
+    protected final int mergeBudget;
+
+    // compiled on first use, as voices are frequently copied by the withX methods
+    private volatile PhonemeEncoder encoder;
 
     public AbstractVoice(Model model,
                          PiperPhonemizer phonemizer,
@@ -43,7 +58,10 @@ public abstract class AbstractVoice implements Voice {
                          VoiceSession session,
                          List<Pause> pauses,
                          ModelParameters params,
-                         float gain) {
+                         float gain,
+                         Parallelism parallelism,
+                         Cancellation cancellation,
+                         int mergeBudget) {
         this.session = session;
         this.phonemizer = phonemizer;
         this.model = model;
@@ -51,46 +69,79 @@ public abstract class AbstractVoice implements Voice {
         this.pauses = pauses;
         this.params = params;
         this.gain = gain;
+        this.parallelism = parallelism;
+        this.cancellation = cancellation;
+        this.mergeBudget = mergeBudget;
     }
 
     @Override
     public Audio say(String text) {
-        return toSentences(stripMarkdownEmphasis(text)).stream()
-                .map(this::saySentence)
-                .reduce(Audio::append)
-                .orElseGet(() -> Audio.silence(0));
+        List<String> sentences = toSentences(stripMarkdownEmphasis(text));
+        if (mergeBudget == 0) {
+            return Audio.join(parallelism.map(sentences, this::saySentence));
+        }
+        List<Part> parts = parallelism.map(sentences, s -> cancellation.during(() -> encodeSentence(s)));
+        return Audio.join(parallelism.map(merge(parts), p -> cancellation.during(() -> render(p))));
     }
 
     @Override
-    public Audio sayPhonemes(List<String> text) {
-        long[] phoneme_ids = text.stream()
-                .map(params::processPhoneme)
-                .flatMap(this::asChars)
-                .filter(p -> !p.isEmpty())
-                .flatMapToLong(this::toPhonemeId)
-                .toArray();
+    public Flow.Publisher<Audio> sayStream(String text) {
+        return new SentencePublisher(toSentences(stripMarkdownEmphasis(text)), this::saySentence);
+    }
+
+    @Override
+    public TextFeed openFeed(Consumer<Audio> sink) {
+        return new TextFeed(AbstractVoice::completeLength,
+                text -> toSentences(stripMarkdownEmphasis(text)),
+                this::saySentence,
+                parallelism.executor(),
+                sink);
+    }
 
-        return sayPhonemes(phoneme_ids);
+    @Override
+    public Audio sayPhonemes(List<String> text) {
+        return sayPhonemes(encoder().encode(text, params.stress(), trace));
     }
 
     @Override
     public Audio sayPhonemes(long[] phoneme_ids) {
-        return session.sayPhonemes(model.sid(),
+        return cancellation.during(() -> session.sayPhonemes(model.sid(),
                 phoneme_ids,
                 gain,
-                params);
+                params));
     }
 
+    // sentences may render on any thread, so each sets the cancellation sessions will see
     private Audio saySentence(String text) {
+        return cancellation.during(() -> renderSentence(text));
+    }
+
+    private Audio renderSentence(String text) {
+        return render(encodeSentence(text));
+    }
+
+    private Part encodeSentence(String text) {
         if (text.equals(PAUSE_1_SEC)) {
-            return Audio.silence(1);
+            return Part.silence(Audio.silence(1));
         }
 
         if (text.equals(PAUSE_HALF_SEC)) {
-            return Audio.smallSilence(5);
+            return Part.silence(Audio.smallSilence(5));
         }
 
-        return sayPhonemes(phonemizer.phonemize(model.language(), addPauseSymbols(text)));
+        List<String> phonemes = phonemizer.phonemize(model.language(), addPauseSymbols(text));
+        return Part.speech(encoder().encode(phonemes, params.stress(), trace));
+    }
+
+    private Audio render(Part part) {
+        if (part.silence() != null) {
+            return part.silence();
+        }
+        return session.sayPhonemes(model.sid(), part.ids(), gain, params);
+    }
+
+    private List<Part> merge(List<Part> parts) {
+        return new SentenceMerger(encoder().pause(SENTENCE_GAP_BEATS), mergeBudget).merge(parts);
     }
 
     private String addPauseSymbols(String text) {
@@ -108,7 +159,7 @@ public abstract class AbstractVoice implements Voice {
 
     // do we gain anything from this?
     private List<String> toSentences(String text) {
-        return Arrays.stream(sentenceDetector.sentDetect(text))
+        return Arrays.stream(sentenceDetector.get().sentDetect(text))
                 .flatMap(s -> Arrays.stream(s.split("\n")))
                 .map(String::trim) // required?
                 .flatMap(this::breakWithPauseSymbols)
@@ -116,6 +167,14 @@ public abstract class AbstractVoice implements Voice {
                 .collect(Collectors.toList());
     }
 
+    // Sentences are complete once the detector sees another start after them.
+    // Lines are complete at a line break, as toSentences would split them there anyway
+    private static int completeLength(String text) {
+        Span[] spans = sentenceDetector.get().sentPosDetect(text);
+        int complete = spans.length > 1 ? spans[spans.length - 1].getStart() : 0;
+        return Math.max(complete, text.lastIndexOf('\n') + 1);
+    }
+
     private Stream<String> breakWithPauseSymbols(String s) {
         // title
         if (s.startsWith("#")) {
@@ -139,30 +198,34 @@ public abstract class AbstractVoice implements Voice {
         return Stream.of(s);
     }
 
-    protected LongStream toPhonemeId(String phoneme) {
-        Long id = session.idForSymbol(phoneme);
-
-        var pause = pauses.stream().filter(p -> p.matches(phoneme))
-                .findFirst();
+    /**
+     * Number of times each phoneme id is repeated in the model input
+     * @return repeat count
+     */
+    protected int idRepeats() {
+        return 2;
+    }
 
-        if (pause.isPresent()) {
-            long beatId = session.idForSymbol(";");
-            return LongStream.generate(() -> beatId)
-                    .limit(pause.get().beats() * 2L);
-        }
+    /**
+     * Number of pause ids emitted for each beat of a pause
+     * @return ids per beat
+     */
+    protected int idsPerBeat() {
+        return 2;
+    }
 
-        if (id == null) {
-            trace.unknownPhoneme(phoneme);
-            return LongStream.empty();
+    private PhonemeEncoder encoder() {
+        PhonemeEncoder e = encoder;
+        if (e == null) {
+            e = new PhonemeEncoder(session.config(), pauses, idRepeats(), idsPerBeat());
+            encoder = e;
         }
-
-        return LongStream.of(id, id);
+        return e;
     }
 
-    private static SentenceDetectorME loadSentenceDetector() {
+    private static SentenceModel loadSentenceModel() {
         try (var model = Resource.readAsStream("/en-sent.bin")) {
-            SentenceModel posModel = new SentenceModel(model);
-            return new SentenceDetectorME(posModel);
+            return new SentenceModel(model);
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
@@ -174,9 +237,4 @@ public abstract class AbstractVoice implements Voice {
         return text.replace("*", "");
     }
 
-    private Stream<String> asChars(String s) {
-        return s.chars()
-                .mapToObj(c -> "" + (char) c);
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OnnxTensorLike;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Stops synthesis once cancelled or past a deadline. Voices check between sentences, and
+ * model runs in progress are terminated through their ONNX Runtime run options, so a
+ * cancelled call ends with a CancellationException within roughly one operator's time.
+ *
+ * Sessions find the cancellation for the work they are doing through current(), which
+ * voices set on whichever thread renders each sentence.
+ *
+ * A deadline holds a timer until it passes, so should be closed once its work is done.
+ */
+public final class Cancellation implements AutoCloseable {
+
+    private static final Cancellation NONE = new Cancellation(Long.MAX_VALUE);
+
+    private static final ThreadLocal<Cancellation> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    // guarded by this, so options are never terminated after their run has closed them
+    private final Set<OrtSession.RunOptions> running = new HashSet<>();
+    // woken on cancel, guarded by this
+    private final Set<Runnable> waiting = new HashSet<>();
+    private volatile boolean cancelled;
+    // fires the deadline, null if there is none
+    private volatile ScheduledFuture<?> timer;
+
+    private Cancellation(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Never cancelled
+     * @return a cancellation that never fires
+     */
+    public static Cancellation none() {
+        return NONE;
+    }
+
+    /**
+     * Cancelled only by calling cancel
+     * @return a new cancellation
+     */
+    public static Cancellation create() {
+        return new Cancellation(Long.MAX_VALUE);
+    }
+
+    /**
+     * Cancelled once the timeout elapses, or earlier by calling cancel. Close it once
+     * the work is done, so the timer is released before the deadline passes
+     * @param timeout time allowed from now
+     * @return a new cancellation
+     */
+    public static Cancellation deadline(Duration timeout) {
+        Cancellation c = new Cancellation(System.nanoTime() + timeout.toNanos());
+        // the timer holds the cancellation weakly, so an unclosed deadline nobody can see is not kept
+        WeakReference<Cancellation> ref = new WeakReference<>(c);
+        c.timer = Timer.TIMER.schedule(() -> {
+            Cancellation target = ref.get();
+            if (target != null) {
+                target.cancel();
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        return c;
+    }
+
+    /**
+     * Cancellation for the work running on this thread
+     * @return the cancellation set by the calling voice, or none
+     */
+    public static Cancellation current() {
+        Cancellation c = CURRENT.get();
+        return c != null ? c : NONE;
+    }
+
+    /**
+     * Stop synthesis, terminating any model runs in progress
+     */
+    public void cancel() {
+        if (this == NONE) {
+            return;
+        }
+        stopTimer();
+        List<Runnable> waiters;
+        synchronized (this) {
+            cancelled = true;
+            for (OrtSession.RunOptions options : running) {
+                terminate(options);
+            }
+            waiters = new ArrayList<>(waiting);
+        }
+        waiters.forEach(Runnable::run);
+    }
+
+    /**
+     * Release the deadline's timer once the work it limits is done. Work still using
+     * this cancellation is not cancelled, but a deadline no longer interrupts model runs
+     * in progress once closed.
+     */
+    @Override
+    public void close() {
+        stopTimer();
+    }
+
+    public boolean isCancelled() {
+        return cancelled || pastDeadline();
+    }
+
+    /**
+     * @throws CancellationException if cancelled or past the deadline
+     */
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw cancelledException();
+        }
+    }
+
+    /**
+     * Run a model, terminating the run if cancelled while it is in progress
+     * @param session session to run
+     * @param inputs model inputs
+     * @return the result, which the caller must close
+     * @throws OrtException if the run fails for any reason other than cancellation
+     */
+    public OrtSession.Result run(OrtSession session, Map<String, ? extends OnnxTensorLike> inputs) throws OrtException {
+        if (this == NONE) {
+            return session.run(inputs);
+        }
+        throwIfCancelled();
+        try (OrtSession.RunOptions options = new OrtSession.RunOptions()) {
+            synchronized (this) {
+                running.add(options);
+                if (cancelled) {
+                    terminate(options);
+                }
+            }
+            try {
+                return session.run(inputs, options);
+            } catch (OrtException e) {
+                throwIfCancelled();
+                throw e;
+            } finally {
+                synchronized (this) {
+                    running.remove(options);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for work done by another caller, giving up as soon as this is cancelled
+     * @param work result of the other caller's work
+     * @return the result
+     * @throws CancellationException if this is cancelled first, or the work was cancelled
+     * @throws ExecutionException if the work failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    <T> T await(CompletableFuture<T> work) throws ExecutionException, InterruptedException {
+        if (this == NONE) {
+            return work.get();
+        }
+        CompletableFuture<Void> woken = new CompletableFuture<>();
+        Runnable wake = () -> woken.complete(null);
+        synchronized (this) {
+            waiting.add(wake);
+        }
+        try {
+            throwIfCancelled();
+            work.whenComplete((r, e) -> wake.run());
+            woken.get();
+            throwIfCancelled();
+            return work.get();
+        } finally {
+            synchronized (this) {
+                waiting.remove(wake);
+            }
+        }
+    }
+
+    /**
+     * Do work with this as the current cancellation for the calling thread
+     */
+    <T> T during(Supplier<T> work) {
+        throwIfCancelled();
+        Cancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    private void stopTimer() {
+        ScheduledFuture<?> t = timer;
+        if (t != null) {
+            t.cancel(false);
+        }
+    }
+
+    private boolean pastDeadline() {
+        return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    private CancellationException cancelledException() {
+        return new CancellationException(pastDeadline() ? "Synthesis deadline exceeded" : "Synthesis cancelled");
+    }
+
+    private static void terminate(OrtSession.RunOptions options) {
+        try {
+            options.setTerminate(true);
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // holder, so no thread is started unless deadlines are used
+    private static class Timer {
+        static final ScheduledExecutorService TIMER = createTimer();
+
+        private static ScheduledExecutorService createTimer() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "voices-deadline");
+                t.setDaemon(true);
+                return t;
+            });
+            // closed deadlines leave the queue at once, rather than when they would have fired
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package org.pitest.voices;
 
-import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
-import ai.onnxruntime.OrtSession;
 import org.pitest.voices.g2p.core.PiperPhonemizer;
 import org.pitest.voices.g2p.core.tracing.Trace;
 
@@ -36,6 +34,11 @@ public class ClassPathModel implements Model {
         return Resource.readAsBytes(resource);
     }
 
+    @Override
+    public Path asPath(Path cacheBase) {
+        return Resource.extract(resource, cacheBase);
+    }
+
     @Override
     public ModelConfig resolveConfig(Path cacheBase) throws IOException {
         try (var is = Resource.readAsStream(resource + ".json")) {
@@ -74,8 +77,8 @@ public class ClassPathModel implements Model {
     }
 
     @Override
-    public VoiceSession createSession(OrtEnvironment env, OrtSession.SessionOptions options, Path base) throws IOException, OrtException {
-        return handler.createSession(this, env, options, base);
+    public VoiceSession createSession(SessionLoader loader, Path base) throws IOException, OrtException {
+        return handler.createSession(this, loader, base);
     }
 
 }
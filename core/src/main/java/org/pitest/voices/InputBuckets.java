@@ -0,0 +1,84 @@
+package org.pitest.voices;
+
+import java.util.Arrays;
+
+/**
+ * Lengths that model inputs are padded up to. When every input has a unique length,
+ * ONNX Runtime sees a new shape on each call and cannot reuse its planned allocations.
+ * Padding to a few fixed lengths lets steady state calls reuse them.
+ */
+public final class InputBuckets {
+
+    private static final InputBuckets NONE = new InputBuckets(new int[0]);
+
+    private final int[] sizes;
+
+    private InputBuckets(int[] sizes) {
+        this.sizes = sizes;
+    }
+
+    /**
+     * Inputs are not padded
+     * @return no buckets
+     */
+    public static InputBuckets none() {
+        return NONE;
+    }
+
+    /**
+     * Buckets roughly one and a half times apart, from 32 to 512 ids
+     * @return default buckets
+     */
+    public static InputBuckets defaultBuckets() {
+        return of(32, 48, 64, 96, 128, 192, 256, 384, 512);
+    }
+
+    /**
+     * Pad inputs to the given lengths
+     * @param sizes lengths to pad to
+     * @return buckets
+     */
+    public static InputBuckets of(int... sizes) {
+        int[] sorted = sizes.clone();
+        Arrays.sort(sorted);
+        if (sorted.length != 0 && sorted[0] < 1) {
+            throw new IllegalArgumentException("Bucket sizes must be positive");
+        }
+        return new InputBuckets(sorted);
+    }
+
+    /**
+     * Length to pad an input to
+     * @param length length of the input
+     * @return smallest bucket that holds the input, or the input's own length if none does
+     */
+    public int lengthFor(int length) {
+        for (int size : sizes) {
+            if (size >= length) {
+                return size;
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(sizes, ((InputBuckets) o).sizes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(sizes);
+    }
+
+    @Override
+    public String toString() {
+        return "InputBuckets" + Arrays.toString(sizes);
+    }
+}
@@ -48,6 +48,16 @@ public interface Model {
      */
     byte[] asBytes(Path cacheBase) throws IOException;
 
+    /**
+     * Location of the model on disk, extracting it to the cache if necessary.
+     * Sessions created from a path are read directly by ONNX Runtime, so
+     * the model never passes through the Java heap.
+     * @param cacheBase Directory currently used by Voices for any caches
+     * @return path of the onnx file
+     * @throws IOException in event of error
+     */
+    Path asPath(Path cacheBase) throws IOException;
+
     /**
      * The model config
      * @param cacheBase Directory currently used by Voices for any caches
@@ -68,5 +78,29 @@ public interface Model {
                       VoiceSession session,
                       float gain);
 
-    VoiceSession createSession(OrtEnvironment env, OrtSession.SessionOptions options, Path base) throws OrtException, IOException;
+    /**
+     * Loads the model. Implementations override this method or
+     * createSession(OrtEnvironment, SessionOptions, Path)
+     * @param loader creates the onnx sessions the model needs
+     * @param base Directory currently used by Voices for any caches
+     * @return a session
+     * @throws OrtException in event of error
+     * @throws IOException in event of error
+     */
+    default VoiceSession createSession(SessionLoader loader, Path base) throws OrtException, IOException {
+        return createSession(loader.env(), loader.options(), base);
+    }
+
+    /**
+     * Loads the model with the given options, creating sessions directly
+     * @param env The OrtEnvironment
+     * @param options options for the sessions the model needs
+     * @param base Directory currently used by Voices for any caches
+     * @return a session
+     * @throws OrtException in event of error
+     * @throws IOException in event of error
+     */
+    default VoiceSession createSession(OrtEnvironment env, OrtSession.SessionOptions options, Path base) throws OrtException, IOException {
+        return createSession(SessionLoader.direct(env, options), base);
+    }
 }
@@ -5,6 +5,7 @@ import com.google.gson.stream.JsonReader;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,10 +13,13 @@ public class ModelConfig {
 
     private final long sampleRate;
     private final Map<String,Long> phonemeIdMap;
+    // ids of single code point symbols indexed by code point, -1 if absent
+    private final long[] idsByCodePoint;
 
     ModelConfig(long sampleRate, Map<String, Long> phonemeIdMap) {
         this.sampleRate = sampleRate;
         this.phonemeIdMap = phonemeIdMap;
+        this.idsByCodePoint = compile(phonemeIdMap);
     }
 
     public static ModelConfig fromJson(InputStream json) {
@@ -43,6 +47,38 @@ public class ModelConfig {
     public Map<String, Long> phonemeIdMap() {
         return phonemeIdMap;
     }
+
+    /**
+     * Looks up the id of a single code point symbol without boxing.
+     * @param codePoint symbol to look up
+     * @return the id, or -1 if the model has no such symbol
+     */
+    public long idForCodePoint(int codePoint) {
+        if (codePoint < 0 || codePoint >= idsByCodePoint.length) {
+            return -1;
+        }
+        return idsByCodePoint[codePoint];
+    }
+
+    private static long[] compile(Map<String, Long> phonemeIdMap) {
+        int max = phonemeIdMap.keySet().stream()
+                .filter(ModelConfig::isSingleCodePoint)
+                .mapToInt(s -> s.codePointAt(0))
+                .max()
+                .orElse(-1);
+        long[] table = new long[max + 1];
+        Arrays.fill(table, -1);
+        for (Map.Entry<String, Long> entry : phonemeIdMap.entrySet()) {
+            if (isSingleCodePoint(entry.getKey())) {
+                table[entry.getKey().codePointAt(0)] = entry.getValue();
+            }
+        }
+        return table;
+    }
+
+    static boolean isSingleCodePoint(String s) {
+        return !s.isEmpty() && s.codePointCount(0, s.length()) == 1;
+    }
 }
 
 class PiperJson {
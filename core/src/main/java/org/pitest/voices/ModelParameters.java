@@ -1,15 +1,20 @@
 package org.pitest.voices;
 
-public record ModelParameters(Stress stress, float speed) {
+public record ModelParameters(Stress stress, float speed, InputBuckets buckets) {
 
-    public ModelParameters(Stress stress, float speed) {
+    public ModelParameters(Stress stress, float speed, InputBuckets buckets) {
         this.stress = stress;
         this.speed = speed;
+        this.buckets = buckets;
         if (speed < 0 || speed > 2) {
             throw new IllegalArgumentException("Speed must be between 0 and 2 inclusive");
         }
     }
 
+    public ModelParameters(Stress stress, float speed) {
+        this(stress, speed, InputBuckets.none());
+    }
+
     public static ModelParameters defaultParams() {
         return new ModelParameters(Stresses.KEEP_STRESS, .9f);
     }
@@ -21,7 +26,7 @@ public record ModelParameters(Stress stress, float speed) {
      * @return updated parameters
      */
     public ModelParameters withSpeed(float speed) {
-        return new ModelParameters(stress, speed);
+        return new ModelParameters(stress, speed, buckets);
     }
 
     /**
@@ -33,7 +38,20 @@ public record ModelParameters(Stress stress, float speed) {
      * @return updated parameters
      */
     public ModelParameters withStress(Stress stress) {
-        return new ModelParameters(stress, speed);
+        return new ModelParameters(stress, speed, buckets);
+    }
+
+    /**
+     * Pad phoneme ids up to a fixed set of lengths, so that ONNX Runtime sees the
+     * same few input shapes and can reuse its allocations between calls. Padding
+     * is masked by the model's length input, so only models with one, currently
+     * piper, are padded. Off by default.
+     *
+     * @param buckets lengths to pad to
+     * @return updated parameters
+     */
+    public ModelParameters withInputBuckets(InputBuckets buckets) {
+        return new ModelParameters(stress, speed, buckets);
     }
 
     public String processPhoneme(String s) {
@@ -0,0 +1,84 @@
+package org.pitest.voices;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Controls how many sentences of a single say call are rendered at once.
+ * Sentences are submitted to the executor in order, with at most maxInFlight
+ * outstanding, and results are always returned in the original order.
+ */
+public record Parallelism(Executor executor, int maxInFlight) {
+
+    public Parallelism {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight must be at least 1");
+        }
+    }
+
+    /**
+     * Render sentences one after another on the calling thread
+     * @return sequential parallelism
+     */
+    public static Parallelism sequential() {
+        return new Parallelism(Runnable::run, 1);
+    }
+
+    /**
+     * Render sentences concurrently
+     * @param executor executor to render on. Not owned, so will not be shut down
+     * @param maxInFlight maximum number of sentences rendering or awaiting collection at once
+     * @return parallel parallelism
+     */
+    public static Parallelism parallel(Executor executor, int maxInFlight) {
+        return new Parallelism(executor, maxInFlight);
+    }
+
+    public boolean isSequential() {
+        return maxInFlight == 1;
+    }
+
+    <T, R> List<R> map(List<T> items, Function<T, R> f) {
+        List<R> results = new ArrayList<>(items.size());
+        if (isSequential()) {
+            for (T item : items) {
+                results.add(f.apply(item));
+            }
+            return results;
+        }
+
+        Deque<CompletableFuture<R>> inFlight = new ArrayDeque<>(maxInFlight);
+        try {
+            for (T item : items) {
+                if (inFlight.size() == maxInFlight) {
+                    results.add(join(inFlight.poll()));
+                }
+                inFlight.add(CompletableFuture.supplyAsync(() -> f.apply(item), executor));
+            }
+            while (!inFlight.isEmpty()) {
+                results.add(join(inFlight.poll()));
+            }
+        } finally {
+            // don't leave work queued if a sentence failed
+            inFlight.forEach(c -> c.cancel(false));
+        }
+        return results;
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
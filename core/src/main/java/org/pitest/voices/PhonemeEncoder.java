@@ -0,0 +1,136 @@
+package org.pitest.voices;
+
+import org.pitest.voices.g2p.core.tracing.Trace;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Converts phonemizer output to model ids. Ids and pauses are looked up in tables
+ * indexed by code point, so no strings or boxed ids are created. The output is
+ * counted before it is written, so the only allocation is the exactly sized result.
+ */
+class PhonemeEncoder {
+
+    private static final int NOT_A_PAUSE = -1;
+
+    private final ModelConfig config;
+    private final int idRepeats;
+    private final long beatId;
+    private final int beatRepeats;
+    // beats to emit for each code point, NOT_A_PAUSE if the symbol is not a pause
+    private final int[] pauseBeats;
+
+    PhonemeEncoder(ModelConfig config, List<Pause> pauses, int idRepeats, int beatRepeats) {
+        this.config = config;
+        this.idRepeats = idRepeats;
+        this.beatId = config.idForCodePoint(';');
+        this.beatRepeats = beatRepeats;
+        this.pauseBeats = compilePauses(pauses, beatRepeats, beatId != -1);
+    }
+
+    long[] encode(List<String> words, Stress stress, Trace trace) {
+        Stresses filter = stress instanceof Stresses ? (Stresses) stress : Stresses.KEEP_STRESS;
+        List<String> processed = stress instanceof Stresses ? words : applyToWords(words, stress);
+
+        long[] ids = new long[count(processed, filter)];
+        int pos = 0;
+        for (String word : processed) {
+            for (int i = 0; i < word.length(); ) {
+                int cp = word.codePointAt(i);
+                i += Character.charCount(cp);
+                if (filter.removes(cp)) {
+                    continue;
+                }
+                int beats = beatsFor(cp);
+                if (beats != NOT_A_PAUSE) {
+                    Arrays.fill(ids, pos, pos + beats, beatId);
+                    pos += beats;
+                    continue;
+                }
+                long id = config.idForCodePoint(cp);
+                if (id == -1) {
+                    trace.unknownPhoneme(new String(Character.toChars(cp)));
+                    continue;
+                }
+                Arrays.fill(ids, pos, pos + idRepeats, id);
+                pos += idRepeats;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Ids for a pause of the given length
+     * @param beats length of the pause
+     * @return pause ids, empty if the model has no pause symbol
+     */
+    long[] pause(int beats) {
+        if (beatId == -1) {
+            return new long[0];
+        }
+        long[] ids = new long[beats * beatRepeats];
+        Arrays.fill(ids, beatId);
+        return ids;
+    }
+
+    private int count(List<String> words, Stresses filter) {
+        int n = 0;
+        for (String word : words) {
+            for (int i = 0; i < word.length(); ) {
+                int cp = word.codePointAt(i);
+                i += Character.charCount(cp);
+                if (filter.removes(cp)) {
+                    continue;
+                }
+                int beats = beatsFor(cp);
+                if (beats != NOT_A_PAUSE) {
+                    n += beats;
+                } else if (config.idForCodePoint(cp) != -1) {
+                    n += idRepeats;
+                }
+            }
+        }
+        return n;
+    }
+
+    private int beatsFor(int codePoint) {
+        if (codePoint >= pauseBeats.length) {
+            return NOT_A_PAUSE;
+        }
+        return pauseBeats[codePoint];
+    }
+
+    private static int[] compilePauses(List<Pause> pauses, int beatRepeats, boolean hasBeat) {
+        if (!hasBeat) {
+            return new int[0];
+        }
+        int max = pauses.stream()
+                .map(Pause::symbol)
+                .filter(ModelConfig::isSingleCodePoint)
+                .mapToInt(s -> s.codePointAt(0))
+                .max()
+                .orElse(-1);
+        int[] table = new int[max + 1];
+        Arrays.fill(table, NOT_A_PAUSE);
+        for (Pause pause : pauses) {
+            if (!ModelConfig.isSingleCodePoint(pause.symbol())) {
+                continue;
+            }
+            int cp = pause.symbol().codePointAt(0);
+            // first matching pause wins
+            if (table[cp] == NOT_A_PAUSE) {
+                table[cp] = pause.beats() * beatRepeats;
+            }
+        }
+        return table;
+    }
+
+    // custom stresses can only be applied to whole words
+    private static List<String> applyToWords(List<String> words, Stress stress) {
+        return words.stream()
+                .map(stress)
+                .collect(Collectors.toList());
+    }
+}
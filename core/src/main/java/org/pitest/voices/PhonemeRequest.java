@@ -0,0 +1,11 @@
+package org.pitest.voices;
+
+/**
+ * A single call to VoiceSession.sayPhonemes, for sessions that render several at once
+ * @param sid speaker id, or -1 if the model has one speaker
+ * @param ids phoneme ids
+ * @param gain gain to apply
+ * @param params model parameters
+ */
+public record PhonemeRequest(int sid, long[] ids, float gain, ModelParameters params) {
+}
@@ -5,8 +5,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class Resource {
@@ -30,6 +37,52 @@ public class Resource {
         }
     }
 
+    /**
+     * Copies a resource into a directory, mirroring the resource's path within the
+     * directory. The copy is given the resource's modification time, and an existing
+     * copy is reused only if its size and modification time match the resource. A
+     * resource whose modification time is unknown is copied every time.
+     * @param resource name of the resource
+     * @param dir directory to copy to
+     * @return location of the copy
+     */
+    public static Path extract(String resource, Path dir) {
+        URL url = Resource.class.getResource(resource);
+        if (url == null) {
+            throw new IllegalStateException("Could not find resource " + resource);
+        }
+        Path target = dir.resolve(resource.replaceFirst("^/", ""));
+        try {
+            URLConnection source = url.openConnection();
+            long expected = source.getContentLengthLong();
+            long modified = source.getLastModified();
+            if (isCopy(target, expected, modified)) {
+                return target;
+            }
+            Files.createDirectories(target.getParent());
+            // copy then move, so other processes never see a partial file
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (InputStream is = url.openStream()) {
+                Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (modified != 0) {
+                Files.setLastModifiedTime(temp, FileTime.fromMillis(modified));
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // file systems may store times more coarsely than the resource, so compare to the second
+    private static boolean isCopy(Path target, long size, long modified) throws IOException {
+        if (modified == 0 || !Files.exists(target) || Files.size(target) != size) {
+            return false;
+        }
+        return Files.getLastModifiedTime(target).to(TimeUnit.SECONDS) == TimeUnit.MILLISECONDS.toSeconds(modified);
+    }
+
     public static InputStream readAsStream(String resource) {
         var stream = Resource.class.getResourceAsStream(resource);
         if (stream == null) {
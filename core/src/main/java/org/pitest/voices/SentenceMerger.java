@@ -0,0 +1,65 @@
+package org.pitest.voices;
+
+import org.pitest.voices.audio.Audio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Each inference has a fixed cost, so consecutive spoken sentences that fit within
+ * the budget are joined with a short pause and rendered together. Silences standing
+ * in for pause symbols are never merged, and a sentence over the budget renders alone.
+ */
+final class SentenceMerger {
+
+    private final long[] gap;
+    private final int budget;
+
+    SentenceMerger(long[] gap, int budget) {
+        this.gap = gap;
+        this.budget = budget;
+    }
+
+    List<Part> merge(List<Part> parts) {
+        List<Part> merged = new ArrayList<>(parts.size());
+        Part current = null;
+        for (Part part : parts) {
+            if (current != null && current.isSpeech() && part.isSpeech()
+                    && current.ids().length + gap.length + part.ids().length <= budget) {
+                current = Part.speech(concat(current.ids(), gap, part.ids()));
+                continue;
+            }
+            if (current != null) {
+                merged.add(current);
+            }
+            current = part;
+        }
+        if (current != null) {
+            merged.add(current);
+        }
+        return merged;
+    }
+
+    private static long[] concat(long[] first, long[] gap, long[] second) {
+        long[] joined = Arrays.copyOf(first, first.length + gap.length + second.length);
+        System.arraycopy(gap, 0, joined, first.length, gap.length);
+        System.arraycopy(second, 0, joined, first.length + gap.length, second.length);
+        return joined;
+    }
+
+    // a sentence encoded to phoneme ids, or a silence standing in for a pause symbol
+    record Part(long[] ids, Audio silence) {
+        static Part speech(long[] ids) {
+            return new Part(ids, null);
+        }
+
+        static Part silence(Audio silence) {
+            return new Part(null, silence);
+        }
+
+        boolean isSpeech() {
+            return ids != null;
+        }
+    }
+}
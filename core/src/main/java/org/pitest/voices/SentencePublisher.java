@@ -0,0 +1,118 @@
+package org.pitest.voices;
+
+import org.pitest.voices.audio.Audio;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cold publisher that renders one sentence per requested item. Nothing is
+ * synthesised until a subscriber signals demand, and rendering happens on
+ * the thread that calls request, so memory use is bounded by the demand
+ * window rather than the length of the text.
+ */
+class SentencePublisher implements Flow.Publisher<Audio> {
+
+    private final List<String> sentences;
+    private final Function<String, Audio> synthesiser;
+
+    SentencePublisher(List<String> sentences, Function<String, Audio> synthesiser) {
+        this.sentences = sentences;
+        this.synthesiser = synthesiser;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Audio> subscriber) {
+        var subscription = new SentenceSubscription(subscriber, sentences.iterator(), synthesiser);
+        subscriber.onSubscribe(subscription);
+        // empty text completes without waiting for demand
+        subscription.drain();
+    }
+
+    private static class SentenceSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Audio> subscriber;
+        private final Iterator<String> remaining;
+        private final Function<String, Audio> synthesiser;
+
+        private final AtomicLong demand = new AtomicLong();
+        // guards the drain loop so that re-entrant calls to request from
+        // within onNext do not recurse
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        // set by request, signalled from the drain loop so onError is never concurrent with onNext
+        private volatile Throwable invalidDemand;
+        private boolean done;
+
+        SentenceSubscription(Flow.Subscriber<? super Audio> subscriber,
+                             Iterator<String> remaining,
+                             Function<String, Audio> synthesiser) {
+            this.subscriber = subscriber;
+            this.remaining = remaining;
+            this.synthesiser = synthesiser;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidDemand = new IllegalArgumentException("Demand must be positive but was " + n);
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                if (!done && !cancelled && invalidDemand != null) {
+                    fail(invalidDemand);
+                }
+
+                while (!done && !cancelled && demand.get() > 0 && remaining.hasNext()) {
+                    Audio audio;
+                    try {
+                        audio = synthesiser.apply(remaining.next());
+                    } catch (RuntimeException e) {
+                        fail(e);
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(audio);
+                    } catch (RuntimeException e) {
+                        // a subscriber that throws is treated as having cancelled (rule 2.13)
+                        fail(e);
+                        break;
+                    }
+                }
+
+                if (!done && !cancelled && !remaining.hasNext()) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void fail(Throwable t) {
+            done = true;
+            cancelled = true;
+            subscriber.onError(t);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Creates ONNX Runtime sessions from model files, so that the owner of the sessions
+ * decides how they are configured and whether anything is cached between runs.
+ */
+public interface SessionLoader {
+
+    /**
+     * Environment sessions are created in
+     * @return the environment
+     */
+    OrtEnvironment env();
+
+    /**
+     * Creates a session for a model file
+     * @param id stable, unique id for the model
+     * @param model location of the onnx file
+     * @return a new session
+     * @throws OrtException in event of error
+     */
+    OrtSession load(String id, Path model) throws OrtException;
+
+    /**
+     * Options configured as this loader configures its sessions, for models that
+     * create their sessions themselves
+     * @return options for a new session
+     */
+    default OrtSession.SessionOptions options() {
+        return new OrtSession.SessionOptions();
+    }
+
+    /**
+     * Creates, or reuses, a session for a model file that is identical for many voices.
+     * Loaders owned by a Chorus share one session per model file between all its voices,
+     * configured by whichever voice loaded it first. Other loaders do not share.
+     * @param id stable, unique id for the model
+     * @param model location of the onnx file
+     * @return a session that the caller must release once finished with
+     * @throws OrtException in event of error
+     */
+    default SharedSession loadShared(String id, Path model) throws OrtException {
+        return new SharedSession(load(id, model));
+    }
+
+    /**
+     * Loader that creates every session directly from the model file with the given options
+     * @param env environment to use
+     * @param options options for every session
+     * @return a loader
+     */
+    static SessionLoader direct(OrtEnvironment env, OrtSession.SessionOptions options) {
+        return new SessionLoader() {
+            @Override
+            public OrtEnvironment env() {
+                return env;
+            }
+
+            @Override
+            public OrtSession load(String id, Path model) throws OrtException {
+                return env.createSession(model.toString(), options);
+            }
+
+            @Override
+            public OrtSession.SessionOptions options() {
+                return options;
+            }
+        };
+    }
+
+    /**
+     * Loader that creates every session directly from the model file, with fresh options
+     * prepared by the given function
+     * @param env environment to use
+     * @param configure prepares the options for each session
+     * @return a loader
+     */
+    static SessionLoader configured(OrtEnvironment env, Consumer<OrtSession.SessionOptions> configure) {
+        return new SessionLoader() {
+            @Override
+            public OrtEnvironment env() {
+                return env;
+            }
+
+            @Override
+            public OrtSession load(String id, Path model) throws OrtException {
+                try (OrtSession.SessionOptions options = options()) {
+                    return env.createSession(model.toString(), options);
+                }
+            }
+
+            @Override
+            public OrtSession.SessionOptions options() {
+                OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+                configure.accept(options);
+                return options;
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+/**
+ * A session shared between several voice sessions, for models such as kokoro whose
+ * network is identical for every voice. It is closed when the last voice session
+ * using it releases it.
+ */
+public final class SharedSession {
+
+    private final OrtSession session;
+    private final Runnable onClose;
+    // guarded by this
+    private int references = 1;
+    private boolean closed;
+
+    SharedSession(OrtSession session) {
+        this(session, () -> {});
+    }
+
+    SharedSession(OrtSession session, Runnable onClose) {
+        this.session = session;
+        this.onClose = onClose;
+    }
+
+    public OrtSession session() {
+        return session;
+    }
+
+    /**
+     * @return false if the session has already been closed and must be reloaded
+     */
+    synchronized boolean acquire() {
+        if (closed) {
+            return false;
+        }
+        references++;
+        return true;
+    }
+
+    public synchronized void release() throws OrtException {
+        references--;
+        if (references == 0) {
+            closed = true;
+            try {
+                session.close();
+            } finally {
+                onClose.run();
+            }
+        }
+    }
+}
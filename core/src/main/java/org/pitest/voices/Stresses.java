@@ -7,6 +7,11 @@ public enum Stresses implements Stress {
         public String apply(String s) {
             return s;
         }
+
+        @Override
+        boolean removes(int codePoint) {
+            return false;
+        }
     },
 
     NO_STRESS() {
@@ -14,5 +19,17 @@ public enum Stresses implements Stress {
         public String apply(String s) {
             return s.replace("ˈ", "");
         }
+
+        @Override
+        boolean removes(int codePoint) {
+            return codePoint == 'ˈ';
+        }
     };
+
+    /**
+     * Allows the stress to be applied while encoding, without creating new strings
+     * @param codePoint symbol to test
+     * @return true if apply would remove the symbol
+     */
+    abstract boolean removes(int codePoint);
 }
@@ -0,0 +1,102 @@
+package org.pitest.voices;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of reusable direct buffers for building input tensors. Tensors created from
+ * direct buffers in native order read them in place, so inputs are neither allocated
+ * nor copied on each call. As the tensor reads the buffer directly, a lease must not be
+ * returned until every tensor created from it has been closed.
+ */
+public class TensorBuffers {
+
+    private final int longSlots;
+    private final int floatSlots;
+    private final Queue<Lease> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param longSlots number of long inputs each call needs
+     * @param floatSlots number of float inputs each call needs
+     */
+    public TensorBuffers(int longSlots, int floatSlots) {
+        this.longSlots = longSlots;
+        this.floatSlots = floatSlots;
+    }
+
+    /**
+     * Leases a set of buffers, creating one if none are idle.
+     * @return buffers for a single call
+     */
+    public Lease lease() {
+        Lease lease = idle.poll();
+        if (lease != null) {
+            return lease;
+        }
+        return new Lease();
+    }
+
+    int idle() {
+        return idle.size();
+    }
+
+    public final class Lease implements AutoCloseable {
+
+        private final LongBuffer[] longs = new LongBuffer[longSlots];
+        private final FloatBuffer[] floats = new FloatBuffer[floatSlots];
+
+        private Lease() {
+        }
+
+        /**
+         * Buffer for a long input, grown if required
+         * @param slot index of the input
+         * @param size number of values the input holds
+         * @return empty buffer with a limit of size
+         */
+        public LongBuffer longs(int slot, int size) {
+            LongBuffer buffer = longs[slot];
+            if (buffer == null || buffer.capacity() < size) {
+                buffer = allocate(size, Long.BYTES).asLongBuffer();
+                longs[slot] = buffer;
+            }
+            buffer.clear().limit(size);
+            return buffer;
+        }
+
+        /**
+         * Buffer for a float input, grown if required
+         * @param slot index of the input
+         * @param size number of values the input holds
+         * @return empty buffer with a limit of size
+         */
+        public FloatBuffer floats(int slot, int size) {
+            FloatBuffer buffer = floats[slot];
+            if (buffer == null || buffer.capacity() < size) {
+                buffer = allocate(size, Float.BYTES).asFloatBuffer();
+                floats[slot] = buffer;
+            }
+            buffer.clear().limit(size);
+            return buffer;
+        }
+
+        /**
+         * Returns the buffers to the pool
+         */
+        @Override
+        public void close() {
+            idle.add(this);
+        }
+
+        private ByteBuffer allocate(int size, int bytes) {
+            // round up so buffers grow in steps rather than on every longer input
+            int capacity = Integer.highestOneBit(Math.max(size, 8) - 1) << 1;
+            return ByteBuffer.allocateDirect(capacity * bytes)
+                    .order(ByteOrder.nativeOrder());
+        }
+    }
+}
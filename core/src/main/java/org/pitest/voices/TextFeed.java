@@ -0,0 +1,116 @@
+package org.pitest.voices;
+
+import org.pitest.voices.audio.Audio;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Accepts text a fragment at a time, for example tokens as a language model generates
+ * them, and renders each sentence as soon as it is known to be complete. A sentence is
+ * complete once the text that follows it starts another, so the last sentence is only
+ * rendered when the feed is closed.
+ *
+ * Audio is passed to the sink in sentence order. Sentences render using the voice's
+ * parallelism executor, so append returns without waiting for synthesis when the voice
+ * is parallel, and renders on the appending thread when it is sequential.
+ *
+ * Feeds are not thread safe.
+ */
+public final class TextFeed implements AutoCloseable {
+
+    private final ToIntFunction<String> completeLength;
+    private final Function<String, List<String>> sentences;
+    private final Function<String, Audio> synthesiser;
+    private final Executor executor;
+    private final Consumer<Audio> sink;
+
+    private final StringBuilder pending = new StringBuilder();
+    private CompletableFuture<Void> rendered = CompletableFuture.completedFuture(null);
+    private boolean closed;
+
+    /**
+     * @param completeLength length of the leading text that holds only complete sentences
+     * @param sentences splits complete text into the sentences to render
+     * @param synthesiser renders a sentence
+     * @param executor executor to render on
+     * @param sink receives audio for each sentence
+     */
+    TextFeed(ToIntFunction<String> completeLength,
+             Function<String, List<String>> sentences,
+             Function<String, Audio> synthesiser,
+             Executor executor,
+             Consumer<Audio> sink) {
+        this.completeLength = completeLength;
+        this.sentences = sentences;
+        this.synthesiser = synthesiser;
+        this.executor = executor;
+        this.sink = sink;
+    }
+
+    /**
+     * Add text, rendering any sentences it completes
+     * @param text next fragment of text
+     * @return this feed
+     */
+    public TextFeed append(CharSequence text) {
+        if (closed) {
+            throw new IllegalStateException("Feed is closed");
+        }
+        failIfRenderingFailed();
+        pending.append(text);
+        int complete = completeLength.applyAsInt(pending.toString());
+        if (complete > 0) {
+            render(pending.substring(0, complete));
+            pending.delete(0, complete);
+            failIfRenderingFailed();
+        }
+        return this;
+    }
+
+    /**
+     * Render any remaining text and wait for all audio to reach the sink
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!pending.toString().isBlank()) {
+            render(pending.toString());
+        }
+        pending.setLength(0);
+        awaitRendered();
+    }
+
+    private void render(String text) {
+        for (String sentence : sentences.apply(text)) {
+            rendered = rendered.thenRunAsync(() -> sink.accept(synthesiser.apply(sentence)), executor);
+        }
+    }
+
+    private void failIfRenderingFailed() {
+        if (rendered.isCompletedExceptionally()) {
+            awaitRendered();
+        }
+    }
+
+    private void awaitRendered() {
+        try {
+            rendered.join();
+        } catch (CompletionException e) {
+            // report each failure once, so close does not rethrow what append already threw
+            rendered = CompletableFuture.completedFuture(null);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package org.pitest.voices;
 import org.pitest.voices.audio.Audio;
 
 import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 public interface Voice {
 
@@ -13,6 +15,24 @@ public interface Voice {
      */
     Audio say(String text);
 
+    /**
+     * Produce audio for text one sentence at a time. Sentences are rendered
+     * only as the subscriber requests them, so the first audio is available
+     * after a single sentence rather than the whole text.
+     * @param text text to speak
+     * @return a publisher emitting one Audio per sentence, in order
+     */
+    Flow.Publisher<Audio> sayStream(String text);
+
+    /**
+     * Open a feed that accepts text a fragment at a time, such as tokens streamed from a
+     * language model, and renders each sentence as soon as it is complete. Closing the feed
+     * renders any remaining text and waits for its audio.
+     * @param sink receives audio for each sentence, in order
+     * @return a feed to append text to
+     */
+    TextFeed openFeed(Consumer<Audio> sink);
+
     /**
      * Produce audio for phonemes
      * @param text List of IPA phonemes, eg ɹ,eɪ,n,b,əʊ
@@ -74,4 +94,33 @@ public interface Voice {
      * @return a new Voice
      */
     Voice withModelParameters(ModelParameters params);
+
+    /**
+     * Produce a variation of this voice that renders the sentences of a
+     * single say call concurrently. Audio is always reassembled in the
+     * original sentence order.
+     * @param parallelism parallelism to use
+     * @return a new Voice
+     */
+    Voice withParallelism(Parallelism parallelism);
+
+    /**
+     * Produce a variation of this voice that stops rendering once the cancellation fires.
+     * Calls in progress end with a CancellationException, checked between sentences and
+     * within each model run. Cancellations are usually per request, so create a variation
+     * for each, and close deadlines once the request completes.
+     * @param cancellation cancellation to observe
+     * @return a new Voice
+     */
+    Voice withCancellation(Cancellation cancellation);
+
+    /**
+     * Produce a variation of this voice that renders consecutive short sentences of a say
+     * call in a single inference, joined by a short pause, for as long as their combined
+     * phoneme ids fit the budget. Text made of many short sentences, such as dialogue, then
+     * needs far fewer model runs. Streams and feeds still render one sentence at a time.
+     * @param maxPhonemes largest merged input in phoneme ids. 0 renders each sentence separately
+     * @return a new Voice
+     */
+    Voice withSentenceMerging(int maxPhonemes);
 }
@@ -17,5 +17,21 @@ public interface VoiceHandler {
                       VoiceSession session,
                       float gain);
 
-    VoiceSession createSession(Model model, OrtEnvironment env, OrtSession.SessionOptions options, Path base) throws IOException, OrtException;
+    /**
+     * Loads a model. Implementations override this method or
+     * createSession(Model, OrtEnvironment, SessionOptions, Path)
+     * @param model model to load
+     * @param loader creates the onnx sessions the model needs
+     * @param base Directory currently used by Voices for any caches
+     * @return a session
+     * @throws IOException in event of error
+     * @throws OrtException in event of error
+     */
+    default VoiceSession createSession(Model model, SessionLoader loader, Path base) throws IOException, OrtException {
+        return createSession(model, loader.env(), loader.options(), base);
+    }
+
+    default VoiceSession createSession(Model model, OrtEnvironment env, OrtSession.SessionOptions options, Path base) throws IOException, OrtException {
+        return createSession(model, SessionLoader.direct(env, options), base);
+    }
 }
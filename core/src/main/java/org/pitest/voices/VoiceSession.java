@@ -2,8 +2,31 @@ package org.pitest.voices;
 
 import org.pitest.voices.audio.Audio;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 public interface VoiceSession extends AutoCloseable {
     Long idForSymbol(String phoneme);
 
+    ModelConfig config();
+
     Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params);
+
+    /**
+     * Render several requests, in a single model run if the session supports batches
+     * @param requests requests to render
+     * @return audio for each request, in the same order
+     */
+    default List<Audio> sayBatch(List<PhonemeRequest> requests) {
+        return requests.stream()
+                .map(r -> sayPhonemes(r.sid(), r.ids(), r.gain(), r.params()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return true if sayBatch renders a batch faster than rendering each request in turn
+     */
+    default boolean supportsBatching() {
+        return false;
+    }
 }
@@ -1,31 +1,105 @@
 package org.pitest.voices.audio;
 
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.OutputStream;
-import java.io.UncheckedIOException;
-import java.lang.reflect.Array;
-import java.nio.file.Files;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Mono audio held as a list of segments. Appending only combines the
+ * segment lists, and silence is not allocated at all, so the samples are
+ * copied into a single array only when getSamples is called.
+ */
 public class Audio {
-    private final float[] samples;
+    // samples quieter than this are treated as silence when trimming
+    private static final float SILENCE = 0.001f;
+
+    private final List<Segment> segments;
     private final int sampleRate;
+    private final int length;
+
+    // lazily flattened from the segments
+    private volatile float[] samples;
 
     public Audio(float[] samples, int sampleRate) {
+        this(List.of(new Samples(samples)), sampleRate);
         this.samples = samples;
+    }
+
+    private Audio(List<Segment> segments, int sampleRate) {
+        this.segments = segments;
         this.sampleRate = sampleRate;
+        this.length = segments.stream().mapToInt(Segment::length).sum();
+    }
+
+    /**
+     * Audio from the samples remaining in a buffer, with gain applied and samples clipped
+     * to the range -1 to 1 as they are read, as by withGain. Takes ownership of the buffer,
+     * so a writable heap buffer is scaled in place and used as the backing store without
+     * a further copy.
+     * @param samples buffer holding the samples
+     * @param sampleRate sample rate
+     * @param gain gain to apply
+     * @return audio for the samples
+     */
+    public static Audio fromBuffer(FloatBuffer samples, int sampleRate, double gain) {
+        float[] result;
+        if (samples.hasArray() && !samples.isReadOnly() && samples.arrayOffset() == 0
+                && samples.position() == 0 && samples.remaining() == samples.array().length) {
+            result = samples.array();
+            applyGain(result, result, gain);
+        } else {
+            result = new float[samples.remaining()];
+            int start = samples.position();
+            for (int i = 0; i != result.length; i++) {
+                result[i] = clip((float) (samples.get(start + i) * gain));
+            }
+        }
+        return new Audio(result, sampleRate);
+    }
+
+    /**
+     * Length of the samples remaining in a buffer once a quiet tail is removed, as
+     * produced when a model renders input padded beyond its true length. A short
+     * decay is kept after the last audible sample so speech is not clipped.
+     * @param samples buffer holding the samples, from position zero
+     * @param sampleRate sample rate
+     * @return number of samples to keep
+     */
+    public static int audibleLength(FloatBuffer samples, int sampleRate) {
+        int last = samples.limit() - 1;
+        while (last >= 0 && Math.abs(samples.get(last)) < SILENCE) {
+            last--;
+        }
+        return Math.min(samples.limit(), last + 1 + sampleRate / 50);
     }
 
     public static Audio silence(int seconds) {
-        float[] samples = new float[seconds * 22050];
-        return new Audio(samples, 22050);
+        return new Audio(List.of(new Silence(seconds * 22050)), 22050);
     }
 
     public static Audio smallSilence(int tenthSeconds) {
-        float[] samples = new float[tenthSeconds * 2205];
-        return new Audio(samples, 22050);
+        return new Audio(List.of(new Silence(tenthSeconds * 2205)), 22050);
+    }
+
+    /**
+     * Joins clips end to end without copying their samples
+     * @param clips clips to join, all with the same sample rate
+     * @return combined audio, or no audio if the list is empty
+     */
+    public static Audio join(List<Audio> clips) {
+        if (clips.isEmpty()) {
+            return silence(0);
+        }
+        int sampleRate = clips.get(0).sampleRate;
+        List<Segment> combined = new ArrayList<>();
+        for (Audio clip : clips) {
+            checkSampleRate(sampleRate, clip.sampleRate);
+            combined.addAll(clip.segments);
+        }
+        return new Audio(combined, sampleRate);
     }
 
     public void play() {
@@ -34,91 +108,189 @@ public class Audio {
     }
 
     public byte[] asBytes() {
-        var bos = new ByteArrayOutputStream();
+        var bos = new ExactSizeOutputStream(44 + length * 2);
         save(bos);
-        return bos.toByteArray();
+        return bos.bytes();
     }
 
     public void save(Path filename) {
-        try (OutputStream fos = Files.newOutputStream(filename, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-           save(fos);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        try (WavWriter writer = WavWriter.open(filename, sampleRate)) {
+            writeTo(writer);
         }
     }
 
     public void save(OutputStream os) {
         // amazingly Java doesn't seem to have much in the way of wav handling
         // libraries, so need to do the low level work ourselves
-        int bitsPerSample = 16;
-        int bytesPerSample = bitsPerSample / 8;
+        try (WavWriter writer = WavWriter.open(os, sampleRate, length)) {
+            writeTo(writer);
+        }
+    }
 
-        WavFileHeader wavFileHeader = new WavFileHeader(this.sampleRate, 1, bitsPerSample);
-        try {
-            int byteBufferLen = this.samples.length * bytesPerSample;
-            wavFileHeader.addToSubchunk2Size(byteBufferLen);
-            wavFileHeader.writeHeader(os);
-            byte[] byteBuffer = new byte[byteBufferLen];
-            FloatBufferToByteBuffer.convert(samples, 0, samples.length, false, bitsPerSample, byteBuffer);
-            os.write(byteBuffer);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    void writeTo(WavWriter writer) {
+        for (Segment segment : segments) {
+            segment.writeTo(writer);
         }
     }
 
     public Audio append(Audio other) {
-        if (this.sampleRate != other.sampleRate) {
-            throw new IllegalArgumentException("Sample rates must match : " + this.sampleRate + " != " + other.sampleRate);
-        }
+        checkSampleRate(this.sampleRate, other.sampleRate);
 
-        float[] combined = concat(this.samples, other.samples);
+        List<Segment> combined = new ArrayList<>(this.segments.size() + other.segments.size());
+        combined.addAll(this.segments);
+        combined.addAll(other.segments);
 
         return new Audio(combined, this.sampleRate);
     }
 
     public Audio withGain(double gain) {
-        float[] samples = new float[this.samples.length];
-        float[] orig = this.samples;
-        for (int i = 0; i < samples.length; i++) {
-            float newValue = (float) (orig[i] * gain);
-            if(newValue > 1.0f) {
-                newValue = 1.0f;
-            } else if(newValue < -1.0f) {
-                newValue = -1.0f;
-            }
-            samples[i] = newValue;
+        List<Segment> gained = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            gained.add(segment.withGain(gain));
         }
-        return new Audio(samples, this.sampleRate);
-
+        return new Audio(gained, this.sampleRate);
     }
 
     public int getSampleRate() {
         return sampleRate;
     }
 
-    public float[] getSamples() {
-        return samples;
+    /**
+     * Number of samples in the clip. Does not require the samples to be flattened.
+     * @return sample count
+     */
+    public int length() {
+        return length;
     }
 
-    static float[] concat(float[] a, float[] b) {
-        int len1 = Array.getLength(a);
-        int len2 = Array.getLength(b);
-
-        float[] result = new float[len1 + len2];
-
-        System.arraycopy(a, 0, result, 0, len1);
-        System.arraycopy(b, 0, result, len1, len2);
+    public float[] getSamples() {
+        float[] flat = samples;
+        if (flat == null) {
+            flat = flatten();
+            samples = flat;
+        }
+        return flat;
+    }
 
+    private float[] flatten() {
+        float[] result = new float[length];
+        int offset = 0;
+        for (Segment segment : segments) {
+            segment.copyTo(result, offset);
+            offset += segment.length();
+        }
         return result;
     }
 
     public float max() {
         float max = 0.0f;
-        for (float sample : samples) {
-            if (sample > max) {
-                max = sample;
-            }
+        for (Segment segment : segments) {
+            max = Math.max(max, segment.max());
         }
         return max;
     }
+
+    // source and dest may be the same array
+    private static void applyGain(float[] source, float[] dest, double gain) {
+        for (int i = 0; i < source.length; i++) {
+            dest[i] = clip((float) (source[i] * gain));
+        }
+    }
+
+    private static float clip(float value) {
+        if (value > 1.0f) {
+            return 1.0f;
+        } else if (value < -1.0f) {
+            return -1.0f;
+        }
+        return value;
+    }
+
+    private static void checkSampleRate(int expected, int actual) {
+        if (expected != actual) {
+            throw new IllegalArgumentException("Sample rates must match : " + expected + " != " + actual);
+        }
+    }
+
+    private interface Segment {
+        int length();
+
+        void copyTo(float[] dest, int offset);
+
+        Segment withGain(double gain);
+
+        float max();
+
+        void writeTo(WavWriter writer);
+    }
+
+    private record Samples(float[] samples) implements Segment {
+
+        @Override
+        public int length() {
+            return samples.length;
+        }
+
+        @Override
+        public void copyTo(float[] dest, int offset) {
+            System.arraycopy(samples, 0, dest, offset, samples.length);
+        }
+
+        @Override
+        public Segment withGain(double gain) {
+            float[] gained = new float[samples.length];
+            applyGain(samples, gained, gain);
+            return new Samples(gained);
+        }
+
+        @Override
+        public float max() {
+            float max = 0.0f;
+            for (float sample : samples) {
+                if (sample > max) {
+                    max = sample;
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public void writeTo(WavWriter writer) {
+            writer.write(samples, 0, samples.length);
+        }
+    }
+
+    private record Silence(int length) implements Segment {
+
+        @Override
+        public void copyTo(float[] dest, int offset) {
+            // new arrays are already zeroed
+        }
+
+        @Override
+        public Segment withGain(double gain) {
+            return this;
+        }
+
+        @Override
+        public float max() {
+            return 0.0f;
+        }
+
+        @Override
+        public void writeTo(WavWriter writer) {
+            writer.writeSilence(length);
+        }
+    }
+
+    // avoids the copy made by toByteArray when the final size is known
+    private static class ExactSizeOutputStream extends ByteArrayOutputStream {
+        ExactSizeOutputStream(int size) {
+            super(size);
+        }
+
+        byte[] bytes() {
+            return count == buf.length ? buf : toByteArray();
+        }
+    }
 }
@@ -74,8 +74,14 @@ class WavFileHeader {
 	}
 
 
+	public void setSubchunk2Size(long val) {
+		subchunk2Size = val;
+	}
+
+
 	public void writeHeader(OutputStream os) throws IOException {
-        long chunkSize = 36 + subchunk2Size;
+        // saturate rather than wrap for streams of unknown length
+        long chunkSize = Math.min(36 + subchunk2Size, 0xFFFFFFFFL);
 
 		// chunkId:
 		os.write('R');
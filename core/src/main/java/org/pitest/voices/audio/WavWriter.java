@@ -0,0 +1,204 @@
+package org.pitest.voices.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Incremental 16 bit mono wav encoder. Samples are converted and written in
+ * fixed size blocks, so the full PCM data is never held in memory.
+ *
+ * When writing to a file the header sizes are patched on close, so audio of
+ * unknown length can be appended while synthesis is still running. Plain
+ * output streams cannot be patched, so either the length must be declared up
+ * front, or the header is written with the sizes set to the maximum, as is
+ * conventional for streamed wav.
+ */
+public class WavWriter implements AutoCloseable {
+
+    private static final int BITS_PER_SAMPLE = 16;
+    private static final int BYTES_PER_SAMPLE = BITS_PER_SAMPLE / 8;
+    private static final int BLOCK_SAMPLES = 4096;
+
+    private static final long UNKNOWN = -1;
+
+    private final OutputStream out;
+    // null unless the target can be patched
+    private final FileChannel channel;
+    private final boolean ownsTarget;
+    private final int sampleRate;
+    private final long declaredBytes;
+
+    private final float[] silence = new float[BLOCK_SAMPLES];
+    private final byte[] block = new byte[BLOCK_SAMPLES * BYTES_PER_SAMPLE];
+
+    private long bytesWritten;
+    private boolean closed;
+
+    private WavWriter(OutputStream out,
+                      FileChannel channel,
+                      boolean ownsTarget,
+                      int sampleRate,
+                      long declaredBytes) throws IOException {
+        this.out = out;
+        this.channel = channel;
+        this.ownsTarget = ownsTarget;
+        this.sampleRate = sampleRate;
+        this.declaredBytes = declaredBytes;
+        writeHeader(declaredBytes == UNKNOWN ? 0xFFFFFFFFL : declaredBytes);
+    }
+
+    /**
+     * Writes to a file, patching the header with the final length on close.
+     * @param path file to create or truncate
+     * @param sampleRate sample rate of the audio
+     * @return a writer
+     */
+    public static WavWriter open(Path path, int sampleRate) {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            return new WavWriter(Channels.newOutputStream(channel), channel, true, sampleRate, UNKNOWN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes to the current position of a channel, patching the header with the final
+     * length on close. The channel is not closed.
+     * @param channel channel to write to
+     * @param sampleRate sample rate of the audio
+     * @return a writer
+     */
+    public static WavWriter open(FileChannel channel, int sampleRate) {
+        try {
+            return new WavWriter(Channels.newOutputStream(channel), channel, false, sampleRate, UNKNOWN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a clip of known length to a stream. The stream is not closed.
+     * @param os stream to write to
+     * @param sampleRate sample rate of the audio
+     * @param totalSamples number of samples that will be written
+     * @return a writer
+     */
+    public static WavWriter open(OutputStream os, int sampleRate, long totalSamples) {
+        try {
+            return new WavWriter(os, null, false, sampleRate, totalSamples * BYTES_PER_SAMPLE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a clip of unknown length to a stream that cannot be patched. The header
+     * declares the maximum length, which most players treat as play until end of stream.
+     * The stream is not closed.
+     * @param os stream to write to
+     * @param sampleRate sample rate of the audio
+     * @return a writer
+     */
+    public static WavWriter open(OutputStream os, int sampleRate) {
+        try {
+            return new WavWriter(os, null, false, sampleRate, UNKNOWN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(Audio audio) {
+        if (audio.getSampleRate() != sampleRate) {
+            throw new IllegalArgumentException("Sample rates must match : " + sampleRate + " != " + audio.getSampleRate());
+        }
+        audio.writeTo(this);
+    }
+
+    public void write(float[] samples, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i += BLOCK_SAMPLES) {
+            int n = Math.min(BLOCK_SAMPLES, end - i);
+            FloatBufferToByteBuffer.convert16(samples, i, n, false, block);
+            writeBlock(n * BYTES_PER_SAMPLE);
+        }
+    }
+
+    public void writeSilence(int length) {
+        for (int remaining = length; remaining > 0; remaining -= BLOCK_SAMPLES) {
+            write(silence, 0, Math.min(BLOCK_SAMPLES, remaining));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.flush();
+            if (channel != null) {
+                patchHeader();
+            } else if (declaredBytes != UNKNOWN && declaredBytes != bytesWritten) {
+                throw new IllegalStateException("Declared " + declaredBytes + " bytes of audio but wrote " + bytesWritten);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeTarget();
+        }
+    }
+
+    private void writeBlock(int len) {
+        if (declaredBytes != UNKNOWN && bytesWritten + len > declaredBytes) {
+            throw new IllegalStateException("Attempted to write more audio than the declared " + declaredBytes + " bytes");
+        }
+        try {
+            out.write(block, 0, len);
+            bytesWritten += len;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeHeader(long dataBytes) throws IOException {
+        out.write(header(dataBytes));
+    }
+
+    private void patchHeader() throws IOException {
+        long start = channel.position() - bytesWritten - 44;
+        ByteBuffer header = ByteBuffer.wrap(header(bytesWritten));
+        while (header.hasRemaining()) {
+            channel.write(header, start + header.position());
+        }
+    }
+
+    private byte[] header(long dataBytes) throws IOException {
+        WavFileHeader wavFileHeader = new WavFileHeader(sampleRate, 1, BITS_PER_SAMPLE);
+        wavFileHeader.setSubchunk2Size(dataBytes);
+        var bos = new ByteArrayOutputStream(44);
+        wavFileHeader.writeHeader(bos);
+        return bos.toByteArray();
+    }
+
+    private void closeTarget() {
+        if (!ownsTarget) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CancellationTest {
+
+    @Test
+    void noneIsNeverCancelled() {
+        Cancellation.none().cancel();
+        assertThat(Cancellation.none().isCancelled()).isFalse();
+    }
+
+    @Test
+    void throwsOnceCancelled() {
+        var underTest = Cancellation.create();
+        underTest.throwIfCancelled();
+
+        underTest.cancel();
+
+        assertThatThrownBy(underTest::throwIfCancelled)
+                .isInstanceOf(CancellationException.class)
+                .hasMessage("Synthesis cancelled");
+    }
+
+    @Test
+    void cancelsAtDeadline() throws Exception {
+        var underTest = Cancellation.deadline(Duration.ofMillis(20));
+        assertThat(underTest.isCancelled()).isFalse();
+
+        Thread.sleep(40);
+
+        assertThatThrownBy(underTest::throwIfCancelled)
+                .isInstanceOf(CancellationException.class)
+                .hasMessage("Synthesis deadline exceeded");
+    }
+
+    @Test
+    void isCurrentOnlyDuringWork() {
+        var underTest = Cancellation.create();
+
+        var seen = underTest.during(Cancellation::current);
+
+        assertThat(seen).isSameAs(underTest);
+        assertThat(Cancellation.current()).isSameAs(Cancellation.none());
+    }
+
+    @Test
+    void restoresOuterCancellation() {
+        var outer = Cancellation.create();
+        var inner = Cancellation.create();
+
+        var seen = outer.during(() -> {
+            inner.during(Cancellation::current);
+            return Cancellation.current();
+        });
+
+        assertThat(seen).isSameAs(outer);
+    }
+
+    @Test
+    void doesNotStartWorkOnceCancelled() {
+        var underTest = Cancellation.create();
+        underTest.cancel();
+
+        assertThatThrownBy(() -> underTest.during(() -> {
+            throw new AssertionError("should not run");
+        })).isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    void doesNotRunModelOnceCancelled() {
+        var underTest = Cancellation.create();
+        underTest.cancel();
+
+        assertThatThrownBy(() -> underTest.run(null, Map.of()))
+                .isInstanceOf(CancellationException.class);
+    }
+
+    @Test
+    void awaitsWork() throws Exception {
+        var underTest = Cancellation.create();
+        var work = CompletableFuture.supplyAsync(() -> "done", CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS));
+
+        assertThat(underTest.await(work)).isEqualTo("done");
+    }
+
+    @Test
+    void stopsAwaitingWorkOnceCancelled() throws Exception {
+        var underTest = Cancellation.create();
+        var work = new CompletableFuture<String>();
+        CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS).execute(underTest::cancel);
+
+        assertThatThrownBy(() -> underTest.await(work))
+                .isInstanceOf(CancellationException.class);
+        assertThat(work).isNotDone();
+    }
+
+    @Test
+    void stopsAwaitingWorkAtDeadline() {
+        var underTest = Cancellation.deadline(Duration.ofMillis(20));
+
+        assertThatThrownBy(() -> underTest.await(new CompletableFuture<String>()))
+                .isInstanceOf(CancellationException.class)
+                .hasMessage("Synthesis deadline exceeded");
+    }
+
+    @Test
+    void closingADeadlineDoesNotCancel() {
+        var underTest = Cancellation.deadline(Duration.ofHours(1));
+
+        underTest.close();
+
+        assertThat(underTest.isCancelled()).isFalse();
+    }
+
+    @Test
+    void timerDoesNotKeepDeadlinesAlive() throws Exception {
+        var ref = new WeakReference<>(Cancellation.deadline(Duration.ofHours(1)));
+
+        for (int i = 0; i != 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertThat(ref.get()).isNull();
+    }
+}
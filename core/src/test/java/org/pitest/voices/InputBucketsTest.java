@@ -0,0 +1,42 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InputBucketsTest {
+
+    @Test
+    void choosesSmallestBucketThatFits() {
+        var underTest = InputBuckets.of(64, 32, 128);
+        assertThat(underTest.lengthFor(1)).isEqualTo(32);
+        assertThat(underTest.lengthFor(32)).isEqualTo(32);
+        assertThat(underTest.lengthFor(33)).isEqualTo(64);
+        assertThat(underTest.lengthFor(100)).isEqualTo(128);
+    }
+
+    @Test
+    void leavesLongerInputsUnpadded() {
+        assertThat(InputBuckets.of(32, 64).lengthFor(65)).isEqualTo(65);
+    }
+
+    @Test
+    void doesNotPadWhenDisabled() {
+        assertThat(InputBuckets.none().lengthFor(17)).isEqualTo(17);
+    }
+
+    @Test
+    void rejectsEmptyBuckets() {
+        assertThatThrownBy(() -> InputBuckets.of(0, 32))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void isAModelParameter() {
+        var params = ModelParameters.defaultParams();
+        assertThat(params.buckets()).isEqualTo(InputBuckets.none());
+        assertThat(params.withInputBuckets(InputBuckets.defaultBuckets()).withSpeed(1).buckets())
+                .isEqualTo(InputBuckets.defaultBuckets());
+    }
+}
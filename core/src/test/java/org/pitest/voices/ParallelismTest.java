@@ -0,0 +1,86 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelismTest {
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void sequentialRendersOnCallingThread() {
+        Thread caller = Thread.currentThread();
+        var actual = Parallelism.sequential().map(List.of(1, 2, 3), i -> Thread.currentThread());
+        assertThat(actual).containsOnly(caller);
+    }
+
+    @Test
+    void parallelPreservesOrder() {
+        List<Integer> input = IntStream.range(0, 200).boxed().collect(Collectors.toList());
+
+        var actual = Parallelism.parallel(pool, 8).map(input, i -> {
+            sleep(ThreadLocalRandom.current().nextInt(3));
+            return i * 2;
+        });
+
+        assertThat(actual).isEqualTo(input.stream().map(i -> i * 2).collect(Collectors.toList()));
+    }
+
+    @Test
+    void neverExceedsMaxInFlight() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Integer> input = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+
+        Parallelism.parallel(pool, 3).map(input, i -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(2);
+            running.decrementAndGet();
+            return i;
+        });
+
+        assertThat(peak.get()).isBetween(1, 3);
+    }
+
+    @Test
+    void propagatesFailures() {
+        var underTest = Parallelism.parallel(pool, 4);
+        assertThatThrownBy(() -> underTest.map(List.of(1, 2, 3), i -> {
+            if (i == 2) {
+                throw new IllegalStateException("boom");
+            }
+            return i;
+        })).isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+    }
+
+    @Test
+    void rejectsZeroInFlight() {
+        assertThatThrownBy(() -> Parallelism.parallel(pool, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
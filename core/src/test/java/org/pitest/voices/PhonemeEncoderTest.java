@@ -0,0 +1,136 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.g2p.core.pos.Pos;
+import org.pitest.voices.g2p.core.tracing.Trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhonemeEncoderTest {
+
+    ModelConfig config = new ModelConfig(22050, Map.of(
+            ";", 1L,
+            "a", 10L,
+            "b", 11L,
+            "ˈ", 12L,
+            "—", 13L,
+            "ab", 99L));
+
+    @Test
+    void compilesSingleCodePointSymbols() {
+        assertThat(config.idForCodePoint('a')).isEqualTo(10L);
+        assertThat(config.idForCodePoint('—')).isEqualTo(13L);
+        assertThat(config.idForCodePoint('z')).isEqualTo(-1L);
+        assertThat(config.idForCodePoint(0x1F600)).isEqualTo(-1L);
+    }
+
+    @Test
+    void repeatsIds() {
+        var underTest = new PhonemeEncoder(config, List.of(), 2, 2);
+        assertThat(underTest.encode(List.of("ab", "a"), Stresses.KEEP_STRESS, Trace.noTrace()))
+                .containsExactly(10, 10, 11, 11, 10, 10);
+    }
+
+    @Test
+    void encodesStandalonePauses() {
+        var underTest = new PhonemeEncoder(config, List.of(), 1, 3);
+        assertThat(underTest.pause(2)).containsExactly(1, 1, 1, 1, 1, 1);
+    }
+
+    @Test
+    void encodesNoPauseWhenModelHasNoBeat() {
+        var noBeat = new ModelConfig(22050, Map.of("a", 10L));
+        var underTest = new PhonemeEncoder(noBeat, List.of(), 1, 3);
+        assertThat(underTest.pause(2)).isEmpty();
+    }
+
+    @Test
+    void replacesPausesWithBeats() {
+        var underTest = new PhonemeEncoder(config, List.of(new Pause("—", 2)), 1, 3);
+        assertThat(underTest.encode(List.of("a—b"), Stresses.KEEP_STRESS, Trace.noTrace()))
+                .containsExactly(10, 1, 1, 1, 1, 1, 1, 11);
+    }
+
+    @Test
+    void firstMatchingPauseWins() {
+        var underTest = new PhonemeEncoder(config, List.of(new Pause("—", 1), new Pause("—", 3)), 1, 1);
+        assertThat(underTest.encode(List.of("—"), Stresses.KEEP_STRESS, Trace.noTrace()))
+                .containsExactly(1);
+    }
+
+    @Test
+    void removesStressWithoutChangingWords() {
+        var underTest = new PhonemeEncoder(config, List.of(), 1, 1);
+        assertThat(underTest.encode(List.of("ˈab"), Stresses.NO_STRESS, Trace.noTrace()))
+                .containsExactly(10, 11);
+        assertThat(underTest.encode(List.of("ˈab"), Stresses.KEEP_STRESS, Trace.noTrace()))
+                .containsExactly(12, 10, 11);
+    }
+
+    @Test
+    void appliesCustomStresses() {
+        var underTest = new PhonemeEncoder(config, List.of(), 1, 1);
+        Stress swap = s -> s.replace("a", "b");
+        assertThat(underTest.encode(List.of("ab"), swap, Trace.noTrace()))
+                .containsExactly(11, 11);
+    }
+
+    @Test
+    void tracesAndSkipsUnknownPhonemes() {
+        List<String> unknown = new ArrayList<>();
+        Trace trace = new TraceAdapter() {
+            @Override
+            public void unknownPhoneme(String phoneme) {
+                unknown.add(phoneme);
+            }
+        };
+        var underTest = new PhonemeEncoder(config, List.of(), 1, 1);
+
+        assertThat(underTest.encode(List.of("azb"), Stresses.KEEP_STRESS, trace))
+                .containsExactly(10, 11);
+        assertThat(unknown).containsExactly("z");
+    }
+
+    private static class TraceAdapter implements Trace {
+        private final Trace delegate = Trace.noTrace();
+
+        @Override
+        public Trace start(String word, Pos pos) {
+            return this;
+        }
+
+        @Override
+        public void result(String phonemes) {
+            delegate.result(phonemes);
+        }
+
+        @Override
+        public void dictionaryHit(String word, Pos pos, String s) {
+            delegate.dictionaryHit(word, pos, s);
+        }
+
+        @Override
+        public void morphology(String base) {
+            delegate.morphology(base);
+        }
+
+        @Override
+        public void phonemeRule(String pattern, String remaining) {
+            delegate.phonemeRule(pattern, remaining);
+        }
+
+        @Override
+        public void syllables(List<String> syllables) {
+            delegate.syllables(syllables);
+        }
+
+        @Override
+        public void unknownPhoneme(String phoneme) {
+            delegate.unknownPhoneme(phoneme);
+        }
+    }
+}
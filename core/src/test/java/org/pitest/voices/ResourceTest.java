@@ -0,0 +1,63 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResourceTest {
+
+    @Test
+    void extractsResourcesBelowDirectory(@TempDir Path dir) throws IOException {
+        Path actual = Resource.extract("/extract/sample.txt", dir);
+
+        assertThat(actual).isEqualTo(dir.resolve("extract/sample.txt"));
+        assertThat(Files.readAllBytes(actual)).isEqualTo(Resource.readAsBytes("/extract/sample.txt"));
+    }
+
+    @Test
+    void reusesExistingCopies(@TempDir Path dir) throws IOException {
+        Path first = Resource.extract("/extract/sample.txt", dir);
+        FileTime modified = Files.getLastModifiedTime(first);
+        byte[] marker = new byte[(int) Files.size(first)];
+        Files.write(first, marker);
+        Files.setLastModifiedTime(first, modified);
+
+        Path second = Resource.extract("/extract/sample.txt", dir);
+
+        assertThat(Files.readAllBytes(second)).isEqualTo(marker);
+    }
+
+    @Test
+    void replacesCopiesOfTheSameSizeFromOtherVersions(@TempDir Path dir) throws IOException {
+        Path first = Resource.extract("/extract/sample.txt", dir);
+        Files.write(first, new byte[(int) Files.size(first)]);
+        Files.setLastModifiedTime(first, FileTime.fromMillis(0));
+
+        Path second = Resource.extract("/extract/sample.txt", dir);
+
+        assertThat(Files.readAllBytes(second)).isEqualTo(Resource.readAsBytes("/extract/sample.txt"));
+    }
+
+    @Test
+    void replacesTruncatedCopies(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("extract"));
+        Files.write(dir.resolve("extract/sample.txt"), new byte[] {1, 2, 3});
+
+        Path actual = Resource.extract("/extract/sample.txt", dir);
+
+        assertThat(Files.readAllBytes(actual)).isEqualTo(Resource.readAsBytes("/extract/sample.txt"));
+    }
+
+    @Test
+    void reportsMissingResources(@TempDir Path dir) {
+        assertThatThrownBy(() -> Resource.extract("/not-here.onnx", dir))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
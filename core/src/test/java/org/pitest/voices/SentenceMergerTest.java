@@ -0,0 +1,77 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.SentenceMerger.Part;
+import org.pitest.voices.audio.Audio;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentenceMergerTest {
+
+    static final long[] GAP = {0, 0};
+
+    @Test
+    void mergesSentencesThatExactlyFillTheBudget() {
+        var underTest = new SentenceMerger(GAP, 7);
+
+        List<Part> merged = underTest.merge(List.of(speech(1, 2, 3), speech(4, 5)));
+
+        assertThat(merged).hasSize(1);
+        assertThat(merged.get(0).ids()).containsExactly(1, 2, 3, 0, 0, 4, 5);
+    }
+
+    @Test
+    void doesNotMergeSentencesOneIdOverTheBudget() {
+        var underTest = new SentenceMerger(GAP, 6);
+
+        List<Part> merged = underTest.merge(List.of(speech(1, 2, 3), speech(4, 5)));
+
+        assertThat(merged).extracting(Part::ids)
+                .containsExactly(new long[]{1, 2, 3}, new long[]{4, 5});
+    }
+
+    @Test
+    void keepsMergingWhileTheBudgetAllows() {
+        var underTest = new SentenceMerger(GAP, 8);
+
+        List<Part> merged = underTest.merge(List.of(speech(1), speech(2), speech(3), speech(4)));
+
+        assertThat(merged).extracting(Part::ids)
+                .containsExactly(new long[]{1, 0, 0, 2, 0, 0, 3}, new long[]{4});
+    }
+
+    @Test
+    void neverMergesSilences() {
+        var underTest = new SentenceMerger(GAP, 100);
+        Part pause = Part.silence(Audio.silence(1));
+
+        List<Part> merged = underTest.merge(List.of(speech(1), pause, speech(2), Part.silence(Audio.smallSilence(5))));
+
+        assertThat(merged).hasSize(4);
+        assertThat(merged.get(0).ids()).containsExactly(1);
+        assertThat(merged.get(1)).isSameAs(pause);
+        assertThat(merged.get(2).ids()).containsExactly(2);
+        assertThat(merged.get(3).isSpeech()).isFalse();
+    }
+
+    @Test
+    void rendersSentencesOverTheBudgetAlone() {
+        var underTest = new SentenceMerger(GAP, 4);
+
+        List<Part> merged = underTest.merge(List.of(speech(1), speech(2, 3, 4, 5, 6), speech(7)));
+
+        assertThat(merged).extracting(Part::ids)
+                .containsExactly(new long[]{1}, new long[]{2, 3, 4, 5, 6}, new long[]{7});
+    }
+
+    @Test
+    void mergesNothingWithoutParts() {
+        assertThat(new SentenceMerger(GAP, 10).merge(List.of())).isEmpty();
+    }
+
+    private static Part speech(long... ids) {
+        return Part.speech(ids);
+    }
+}
@@ -0,0 +1,179 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.audio.Audio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentencePublisherTest {
+
+    List<String> rendered = new ArrayList<>();
+
+    Function<String, Audio> synth = s -> {
+        rendered.add(s);
+        return new Audio(new float[s.length()], 22050);
+    };
+
+    @Test
+    void rendersNothingWithoutDemand() {
+        var underTest = new SentencePublisher(List.of("one", "two"), synth);
+        var subscriber = new RecordingSubscriber();
+        underTest.subscribe(subscriber);
+
+        assertThat(rendered).isEmpty();
+        assertThat(subscriber.received).isEmpty();
+    }
+
+    @Test
+    void rendersOnlyAsFarAsDemandAllows() {
+        var underTest = new SentencePublisher(List.of("one", "two", "three"), synth);
+        var subscriber = new RecordingSubscriber();
+        underTest.subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+
+        assertThat(rendered).containsExactly("one", "two");
+        assertThat(subscriber.complete).isFalse();
+    }
+
+    @Test
+    void emitsSentencesInOrderThenCompletes() {
+        var underTest = new SentencePublisher(List.of("a", "bb", "ccc"), synth);
+        var subscriber = new RecordingSubscriber();
+        underTest.subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.received).extracting(a -> a.getSamples().length)
+                .containsExactly(1, 2, 3);
+        assertThat(subscriber.complete).isTrue();
+    }
+
+    @Test
+    void supportsRequestingFromOnNext() {
+        var underTest = new SentencePublisher(List.of("a", "b", "c"), synth);
+        var subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(Audio item) {
+                super.onNext(item);
+                subscription.request(1);
+            }
+        };
+        underTest.subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.received).hasSize(3);
+        assertThat(subscriber.complete).isTrue();
+    }
+
+    @Test
+    void completesImmediatelyWhenNothingToSay() {
+        var underTest = new SentencePublisher(List.of(), synth);
+        var subscriber = new RecordingSubscriber();
+        underTest.subscribe(subscriber);
+
+        assertThat(subscriber.complete).isTrue();
+    }
+
+    @Test
+    void stopsRenderingWhenCancelled() {
+        var underTest = new SentencePublisher(List.of("a", "b", "c"), synth);
+        var subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(Audio item) {
+                super.onNext(item);
+                subscription.cancel();
+            }
+        };
+        underTest.subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+
+        assertThat(rendered).containsExactly("a");
+        assertThat(subscriber.complete).isFalse();
+    }
+
+    @Test
+    void signalsErrorForNonPositiveDemand() {
+        var underTest = new SentencePublisher(List.of("a"), synth);
+        var subscriber = new RecordingSubscriber();
+        underTest.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void signalsErrorWhenSubscriberThrows() {
+        var underTest = new SentencePublisher(List.of("a", "b", "c"), synth);
+        var boom = new IllegalStateException("boom");
+        var subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(Audio item) {
+                super.onNext(item);
+                throw boom;
+            }
+        };
+        underTest.subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        subscriber.subscription.request(3);
+
+        assertThat(subscriber.error).isSameAs(boom);
+        assertThat(rendered).containsExactly("a");
+        assertThat(subscriber.complete).isFalse();
+    }
+
+    @Test
+    void signalsInvalidDemandAfterOnNextReturns() {
+        var underTest = new SentencePublisher(List.of("a", "b"), synth);
+        var subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(Audio item) {
+                super.onNext(item);
+                subscription.request(-1);
+                assertThat(error).isNull();
+            }
+        };
+        underTest.subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.received).hasSize(1);
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static class RecordingSubscriber implements Flow.Subscriber<Audio> {
+        Flow.Subscription subscription;
+        List<Audio> received = new ArrayList<>();
+        boolean complete;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Audio item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TensorBuffersTest {
+
+    TensorBuffers underTest = new TensorBuffers(2, 1);
+
+    @Test
+    void providesEmptyBuffersOfRequestedSize() {
+        try (var lease = underTest.lease()) {
+            LongBuffer longs = lease.longs(0, 5);
+            assertThat(longs.position()).isZero();
+            assertThat(longs.limit()).isEqualTo(5);
+            assertThat(longs.isDirect()).isTrue();
+        }
+    }
+
+    @Test
+    void reusesReturnedLeases() {
+        var first = underTest.lease();
+        LongBuffer buffer = first.longs(0, 10);
+        first.close();
+
+        var second = underTest.lease();
+        assertThat(second).isSameAs(first);
+        assertThat(second.longs(0, 6)).isSameAs(buffer);
+        assertThat(underTest.idle()).isZero();
+    }
+
+    @Test
+    void createsNewLeasesWhenAllInUse() {
+        try (var first = underTest.lease(); var second = underTest.lease()) {
+            assertThat(first).isNotSameAs(second);
+        }
+        assertThat(underTest.idle()).isEqualTo(2);
+    }
+
+    @Test
+    void growsBuffersForLongerInputs() {
+        try (var lease = underTest.lease()) {
+            LongBuffer small = lease.longs(0, 4);
+            LongBuffer large = lease.longs(0, 100);
+            assertThat(large).isNotSameAs(small);
+            assertThat(large.limit()).isEqualTo(100);
+        }
+    }
+
+    @Test
+    void keepsSlotsSeparate() {
+        try (var lease = underTest.lease()) {
+            assertThat(lease.longs(0, 4)).isNotSameAs(lease.longs(1, 4));
+        }
+    }
+
+    @Test
+    void tensorsReadBuffersInPlace() throws Exception {
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        try (var lease = underTest.lease()) {
+            FloatBuffer floats = lease.floats(0, 3).put(1f).put(2f).put(3f).flip();
+            try (var tensor = OnnxTensor.createTensor(env, floats, new long[]{3})) {
+                // a copy would not see later writes
+                floats.put(0, 9f);
+                assertThat((float[]) tensor.getValue()).containsExactly(9f, 2f, 3f);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.pitest.voices;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.audio.Audio;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextFeedTest {
+
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    List<String> rendered = new CopyOnWriteArrayList<>();
+    List<Audio> received = new CopyOnWriteArrayList<>();
+
+    Function<String, Audio> synth = s -> {
+        rendered.add(s);
+        return new Audio(new float[s.length()], 22050);
+    };
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void rendersSentenceOnceNextOneStarts() {
+        var underTest = feed(synth);
+
+        underTest.append("Hello wor").append("ld. ");
+        assertThat(rendered).isEmpty();
+
+        underTest.append("Next");
+        assertThat(rendered).containsExactly("Hello world.");
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    void rendersRemainderOnClose() {
+        var underTest = feed(synth);
+        underTest.append("One. Two. Three");
+        assertThat(rendered).containsExactly("One.", "Two.");
+
+        underTest.close();
+        assertThat(rendered).containsExactly("One.", "Two.", "Three");
+    }
+
+    @Test
+    void rendersNothingForBlankRemainder() {
+        var underTest = feed(synth);
+        underTest.append("One. ");
+        underTest.close();
+        assertThat(rendered).containsExactly("One.");
+    }
+
+    @Test
+    void deliversAudioInOrderWhenRenderingInBackground() {
+        var underTest = new TextFeed(TextFeedTest::afterLastFullStop, TextFeedTest::sentences, synth, pool, received::add);
+        for (int i = 0; i != 50; i++) {
+            underTest.append("Sentence " + i + ". ");
+        }
+        underTest.close();
+
+        assertThat(received).hasSize(50);
+        assertThat(received).extracting(Audio::length)
+                .isSortedAccordingTo(Integer::compare);
+    }
+
+    @Test
+    void appendDoesNotWaitForBackgroundRendering() {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, Audio> slow = s -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return synth.apply(s);
+        };
+        var underTest = new TextFeed(TextFeedTest::afterLastFullStop, TextFeedTest::sentences, slow, pool, received::add);
+
+        underTest.append("One. Two");
+        assertThat(received).isEmpty();
+
+        release.countDown();
+        underTest.close();
+        assertThat(received).hasSize(2);
+    }
+
+    @Test
+    void reportsRenderingFailuresOnce() {
+        var underTest = feed(s -> {
+            if (s.equals("One.")) {
+                throw new IllegalStateException("boom");
+            }
+            return synth.apply(s);
+        });
+
+        assertThatThrownBy(() -> underTest.append("One. Two"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+        underTest.close();
+        assertThat(rendered).containsExactly("Two");
+    }
+
+    @Test
+    void rejectsTextAfterClose() {
+        var underTest = feed(synth);
+        underTest.close();
+        assertThatThrownBy(() -> underTest.append("More."))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private TextFeed feed(Function<String, Audio> synthesiser) {
+        return new TextFeed(TextFeedTest::afterLastFullStop, TextFeedTest::sentences, synthesiser, Runnable::run, received::add);
+    }
+
+    // stands in for the sentence detector, a sentence is complete once text follows its full stop
+    private static int afterLastFullStop(String text) {
+        int end = text.lastIndexOf(". ");
+        if (end == -1 || text.substring(end + 2).isBlank()) {
+            end = text.lastIndexOf(". ", end - 1);
+        }
+        return end == -1 ? 0 : end + 2;
+    }
+
+    private static List<String> sentences(String text) {
+        return Arrays.stream(text.split("(?<=\\.) "))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
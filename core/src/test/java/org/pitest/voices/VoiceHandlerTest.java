@@ -0,0 +1,74 @@
+package org.pitest.voices;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtSession;
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.g2p.core.PiperPhonemizer;
+import org.pitest.voices.g2p.core.tracing.Trace;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VoiceHandlerTest {
+
+    OrtEnvironment env = OrtEnvironment.getEnvironment();
+
+    @Test
+    void loadsHandlersWrittenAgainstOptionsThroughLoaders() throws Exception {
+        var underTest = new OptionsHandler();
+        List<Integer> configured = new ArrayList<>();
+        var loader = SessionLoader.configured(env, options -> configured.add(1));
+
+        underTest.createSession(null, loader, Path.of("."));
+
+        assertThat(underTest.env).isSameAs(env);
+        assertThat(underTest.options).isNotNull();
+        assertThat(configured).hasSize(1);
+    }
+
+    @Test
+    void loadsHandlersWrittenAgainstLoadersWithOptions() throws Exception {
+        var underTest = new LoaderHandler();
+        try (var options = new OrtSession.SessionOptions()) {
+            underTest.createSession(null, env, options, Path.of("."));
+
+            assertThat(underTest.loader.env()).isSameAs(env);
+            assertThat(underTest.loader.options()).isSameAs(options);
+        }
+    }
+
+    private static class OptionsHandler implements VoiceHandler {
+        OrtEnvironment env;
+        OrtSession.SessionOptions options;
+
+        @Override
+        public Voice createVoice(Model model, PiperPhonemizer phonemizer, Trace trace, VoiceSession session, float gain) {
+            return null;
+        }
+
+        @Override
+        public VoiceSession createSession(Model model, OrtEnvironment env, OrtSession.SessionOptions options, Path base) {
+            this.env = env;
+            this.options = options;
+            return null;
+        }
+    }
+
+    private static class LoaderHandler implements VoiceHandler {
+        SessionLoader loader;
+
+        @Override
+        public Voice createVoice(Model model, PiperPhonemizer phonemizer, Trace trace, VoiceSession session, float gain) {
+            return null;
+        }
+
+        @Override
+        public VoiceSession createSession(Model model, SessionLoader loader, Path base) {
+            this.loader = loader;
+            return null;
+        }
+    }
+}
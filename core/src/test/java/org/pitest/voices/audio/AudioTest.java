@@ -3,9 +3,14 @@ package org.pitest.voices.audio;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class AudioTest {
 
@@ -19,6 +24,50 @@ class AudioTest {
         assertThat(path.toFile().length()).isGreaterThan(0);
     }
 
+    @Test
+    void usesHeapBuffersInPlace() {
+        float[] samples = {0.1f, 0.2f};
+        Audio a = Audio.fromBuffer(FloatBuffer.wrap(samples), 22050, 1.0);
+        assertThat(a.getSamples()).isSameAs(samples);
+    }
+
+    @Test
+    void appliesGainWhileReadingBuffers() {
+        Audio a = Audio.fromBuffer(FloatBuffer.wrap(new float[] {0.1f, -0.2f, 0.6f}), 22050, 2.0);
+        assertThat(a.getSamples()).containsExactly(0.2f, -0.4f, 1.0f);
+    }
+
+    @Test
+    void copiesDirectBuffers() {
+        FloatBuffer direct = ByteBuffer.allocateDirect(3 * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer()
+                .put(0.1f).put(0.2f).put(-0.8f)
+                .flip();
+        Audio a = Audio.fromBuffer(direct, 22050, 2.0);
+        assertThat(a.getSamples()).containsExactly(0.2f, 0.4f, -1.0f);
+        assertThat(a.getSampleRate()).isEqualTo(22050);
+    }
+
+    @Test
+    void clipsSamplesWithoutGain() {
+        FloatBuffer direct = ByteBuffer.allocateDirect(2 * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer()
+                .put(1.5f).put(-1.2f)
+                .flip();
+        assertThat(Audio.fromBuffer(direct, 22050, 1.0).getSamples()).containsExactly(1.0f, -1.0f);
+        assertThat(Audio.fromBuffer(FloatBuffer.wrap(new float[] {1.5f, 0.5f}), 22050, 1.0).getSamples())
+                .containsExactly(1.0f, 0.5f);
+    }
+
+    @Test
+    void readsOnlyRemainingSamples() {
+        FloatBuffer buffer = FloatBuffer.wrap(new float[] {0.1f, 0.2f, 0.3f});
+        buffer.position(1);
+        assertThat(Audio.fromBuffer(buffer, 22050, 1.0).getSamples()).containsExactly(0.2f, 0.3f);
+    }
+
     @Test
     void appends() {
         Audio a = Audio.silence(1);
@@ -28,4 +77,89 @@ class AudioTest {
         assertThat(combined.getSamples().length)
                 .isEqualTo(a.getSamples().length + b.getSamples().length);
     }
-}
\ No newline at end of file
+
+    @Test
+    void flattensSegmentsInOrder() {
+        Audio a = new Audio(new float[] {0.1f, 0.2f}, 22050);
+        Audio b = new Audio(new float[] {0.3f}, 22050);
+
+        var combined = a.append(Audio.smallSilence(0)).append(b).append(a);
+        assertThat(combined.getSamples()).containsExactly(0.1f, 0.2f, 0.3f, 0.1f, 0.2f);
+    }
+
+    @Test
+    void silenceIsZeroed() {
+        Audio a = new Audio(new float[] {0.5f}, 22050);
+
+        var combined = a.append(Audio.smallSilence(1)).append(a);
+        assertThat(combined.length()).isEqualTo(2207);
+        assertThat(combined.getSamples()[1]).isEqualTo(0f);
+        assertThat(combined.getSamples()[2206]).isEqualTo(0.5f);
+    }
+
+    @Test
+    void joinsClips() {
+        Audio a = new Audio(new float[] {0.1f}, 22050);
+        Audio b = new Audio(new float[] {0.2f}, 22050);
+
+        assertThat(Audio.join(List.of(a, b, a)).getSamples()).containsExactly(0.1f, 0.2f, 0.1f);
+        assertThat(Audio.join(List.of()).length()).isZero();
+    }
+
+    @Test
+    void appliesGainAcrossSegments() {
+        Audio a = new Audio(new float[] {0.1f, 0.6f}, 22050)
+                .append(Audio.smallSilence(1))
+                .append(new Audio(new float[] {-0.6f}, 22050));
+
+        var actual = a.withGain(2);
+        assertThat(actual.getSamples()[0]).isEqualTo(0.2f);
+        assertThat(actual.getSamples()[1]).isEqualTo(1.0f);
+        assertThat(actual.getSamples()[actual.length() - 1]).isEqualTo(-1.0f);
+    }
+
+    @Test
+    void findsMaxAcrossSegments() {
+        Audio a = new Audio(new float[] {0.1f}, 22050)
+                .append(Audio.silence(1))
+                .append(new Audio(new float[] {0.7f, -0.9f}, 22050));
+        assertThat(a.max()).isEqualTo(0.7f);
+    }
+
+    @Test
+    void writesOneSamplePerTwoBytes() {
+        Audio a = new Audio(new float[] {0.1f}, 22050)
+                .append(Audio.smallSilence(1));
+        // 44 byte header
+        assertThat(a.asBytes()).hasSize(44 + 2 * 2206);
+    }
+
+    @Test
+    void rejectsMismatchedSampleRates() {
+        Audio a = new Audio(new float[] {0.1f}, 22050);
+        Audio b = new Audio(new float[] {0.1f}, 24000);
+        assertThatThrownBy(() -> a.append(b))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void trimsQuietTailOfPaddedOutput() {
+        float[] samples = new float[1000];
+        samples[10] = 0.5f;
+        assertThat(Audio.audibleLength(FloatBuffer.wrap(samples), 1000)).isEqualTo(11 + 20);
+    }
+
+    @Test
+    void keepsAudibleLengthOfAudioThatEndsLoud() {
+        float[] samples = new float[2000];
+        samples[1999] = -0.5f;
+        assertThat(Audio.audibleLength(FloatBuffer.wrap(samples), 22050)).isEqualTo(2000);
+    }
+
+    @Test
+    void audibleLengthNeverExtendsAudio() {
+        float[] samples = new float[200];
+        samples[150] = 0.5f;
+        assertThat(Audio.audibleLength(FloatBuffer.wrap(samples), 22050)).isEqualTo(200);
+    }
+}
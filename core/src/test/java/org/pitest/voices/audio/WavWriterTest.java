@@ -0,0 +1,86 @@
+package org.pitest.voices.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WavWriterTest {
+
+    @Test
+    void patchesSizesWhenFileClosed(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("test.wav");
+        try (WavWriter writer = WavWriter.open(path, 22050)) {
+            writer.write(new Audio(new float[10_000], 22050));
+            writer.write(Audio.smallSilence(1));
+        }
+
+        int dataBytes = (10_000 + 2205) * 2;
+        ByteBuffer written = littleEndian(Files.readAllBytes(path));
+        assertThat(written.capacity()).isEqualTo(44 + dataBytes);
+        assertThat(written.getInt(4)).isEqualTo(36 + dataBytes);
+        assertThat(written.getInt(40)).isEqualTo(dataBytes);
+    }
+
+    @Test
+    void matchesInMemoryEncoding(@TempDir Path dir) throws IOException {
+        Audio audio = new Audio(new float[] {0.1f, -0.5f, 0.9f}, 22050)
+                .append(Audio.smallSilence(1));
+        Path path = dir.resolve("test.wav");
+        try (WavWriter writer = WavWriter.open(path, 22050)) {
+            writer.write(audio);
+        }
+
+        assertThat(Files.readAllBytes(path)).isEqualTo(audio.asBytes());
+    }
+
+    @Test
+    void writesMaximumSizesForStreamsOfUnknownLength() {
+        var bos = new ByteArrayOutputStream();
+        try (WavWriter writer = WavWriter.open(bos, 22050)) {
+            writer.write(new float[100], 0, 100);
+        }
+
+        ByteBuffer written = littleEndian(bos.toByteArray());
+        assertThat(written.getInt(4)).isEqualTo(0xFFFFFFFF);
+        assertThat(written.getInt(40)).isEqualTo(0xFFFFFFFF);
+        assertThat(written.capacity()).isEqualTo(44 + 200);
+    }
+
+    @Test
+    void rejectsWritingMoreThanDeclared() {
+        var bos = new ByteArrayOutputStream();
+        WavWriter writer = WavWriter.open(bos, 22050, 10);
+        assertThatThrownBy(() -> writer.write(new float[11], 0, 11))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsClosingBeforeDeclaredLengthWritten() {
+        var bos = new ByteArrayOutputStream();
+        WavWriter writer = WavWriter.open(bos, 22050, 10);
+        writer.write(new float[5], 0, 5);
+        assertThatThrownBy(writer::close)
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsMismatchedSampleRates() {
+        var bos = new ByteArrayOutputStream();
+        WavWriter writer = WavWriter.open(bos, 16000);
+        assertThatThrownBy(() -> writer.write(Audio.silence(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ByteBuffer littleEndian(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
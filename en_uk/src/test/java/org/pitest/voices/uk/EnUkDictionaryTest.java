@@ -0,0 +1,32 @@
+package org.pitest.voices.uk;
+
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.g2p.core.dictionary.BinaryDictionary;
+import org.pitest.voices.g2p.core.dictionary.MapDictionary;
+import org.pitest.voices.g2p.core.pos.Pos;
+import org.pitest.voices.g2p.util.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnUkDictionaryTest {
+
+    @Test
+    void generatedBinaryDictionaryMatchesText() {
+        var expected = MapDictionary.fromList(Resource.read(EnUkDictionary.TEXT));
+        var underTest = BinaryDictionary.fromResource(EnUkDictionary.BINARY);
+
+        assertThat(underTest.words()).isEqualTo(expected.words());
+        List<String> mismatches = new ArrayList<>();
+        for (String word : expected.words()) {
+            for (Pos pos : Pos.values()) {
+                if (!underTest.get(word, pos).equals(expected.get(word, pos))) {
+                    mismatches.add(word + " " + pos);
+                }
+            }
+        }
+        assertThat(mismatches).isEmpty();
+    }
+}
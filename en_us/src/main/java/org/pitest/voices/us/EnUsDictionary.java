@@ -1,14 +1,28 @@
 package org.pitest.voices.us;
 
 import org.pitest.voices.g2p.core.Dictionary;
+import org.pitest.voices.g2p.core.dictionary.BinaryDictionary;
 import org.pitest.voices.g2p.core.dictionary.Dictionaries;
-import org.pitest.voices.g2p.core.dictionary.MapDictionary;
 
-import static org.pitest.voices.g2p.util.Resource.read;
+import java.nio.file.Path;
 
 public class EnUsDictionary {
+    static final String BINARY = "/dictionary/voices_en_us.vdict";
+    static final String TEXT = "/dictionary/voices_en_us.dict";
+
     public static Dictionary en_us() {
-        return MapDictionary.fromList(read("/dictionary/voices_en_us.dict"))
+        return Dictionaries.fromResources(BINARY, TEXT)
+                .withAdditions(Dictionaries.englishHomographs());
+    }
+
+    /**
+     * Copies the dictionary to a directory and memory maps it from there, so
+     * that processes sharing the directory also share the dictionary's pages.
+     * @param dir directory to copy the dictionary to, such as ChorusConfig.base()
+     * @return the dictionary
+     */
+    public static Dictionary en_us(Path dir) {
+        return BinaryDictionary.extractAndMap(BINARY, dir)
                 .withAdditions(Dictionaries.englishHomographs());
     }
 }
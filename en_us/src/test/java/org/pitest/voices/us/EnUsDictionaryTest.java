@@ -0,0 +1,32 @@
+package org.pitest.voices.us;
+
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.g2p.core.dictionary.BinaryDictionary;
+import org.pitest.voices.g2p.core.dictionary.MapDictionary;
+import org.pitest.voices.g2p.core.pos.Pos;
+import org.pitest.voices.g2p.util.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnUsDictionaryTest {
+
+    @Test
+    void generatedBinaryDictionaryMatchesText() {
+        var expected = MapDictionary.fromList(Resource.read(EnUsDictionary.TEXT));
+        var underTest = BinaryDictionary.fromResource(EnUsDictionary.BINARY);
+
+        assertThat(underTest.words()).isEqualTo(expected.words());
+        List<String> mismatches = new ArrayList<>();
+        for (String word : expected.words()) {
+            for (Pos pos : Pos.values()) {
+                if (!underTest.get(word, pos).equals(expected.get(word, pos))) {
+                    mismatches.add(word + " " + pos);
+                }
+            }
+        }
+        assertThat(mismatches).isEmpty();
+    }
+}
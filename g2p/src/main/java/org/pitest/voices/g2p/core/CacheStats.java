@@ -0,0 +1,19 @@
+package org.pitest.voices.g2p.core;
+
+/**
+ * Snapshot of cache activity
+ * @param hits lookups served from the cache
+ * @param misses lookups passed to the underlying model
+ * @param size entries currently held
+ */
+public record CacheStats(long hits, long misses, int size) {
+
+    public static CacheStats none() {
+        return new CacheStats(0, 0, 0);
+    }
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,113 @@
+package org.pitest.voices.g2p.core;
+
+import org.pitest.voices.Language;
+import org.pitest.voices.g2p.core.pos.Pos;
+import org.pitest.voices.g2p.core.tracing.Trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size bounded cache in front of another model. Natural text repeats a small
+ * number of words very frequently, so most predictions can be served without
+ * reaching the model.
+ *
+ * The cache is split into independently locked segments, each evicting its least
+ * recently used entries, so concurrent phonemizers rarely contend. The segments'
+ * capacities sum to the requested size, so eviction begins once a segment is full
+ * even if the cache as a whole is not. Predictions are
+ * made outside any lock, so two threads missing on the same word may both compute it.
+ *
+ * Words are cached exactly as given, since models such as ByT5 see the original
+ * characters and may pronounce differently cased words differently.
+ */
+public class CachingG2PModel implements G2PModel {
+
+    private static final int SEGMENTS = 16;
+
+    private final G2PModel child;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingG2PModel(G2PModel child, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one entry");
+        }
+        this.child = child;
+        // small caches get fewer segments, so none has a capacity of zero
+        this.segments = new Segment[Math.min(SEGMENTS, maxEntries)];
+        for (int i = 0; i != segments.length; i++) {
+            int share = maxEntries / segments.length + (i < maxEntries % segments.length ? 1 : 0);
+            segments[i] = new Segment(share);
+        }
+    }
+
+    @Override
+    public String predict(Trace trace, Language lang, String word, Pos pos) {
+        Key key = new Key(lang, word, pos);
+        Segment segment = segmentFor(key);
+
+        String cached = segment.get(key);
+        if (cached != null) {
+            hits.increment();
+            // the child model is not called, so report the hit ourselves
+            trace.start(word, pos).result(cached);
+            return cached;
+        }
+
+        misses.increment();
+        String predicted = child.predict(trace, lang, word, pos);
+        if (predicted != null) {
+            segment.put(key, predicted);
+        }
+        return predicted;
+    }
+
+    public CacheStats stats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), size);
+    }
+
+    @Override
+    public void close() throws Exception {
+        child.close();
+    }
+
+    private Segment segmentFor(Key key) {
+        return segments[Math.floorMod(key.hashCode(), segments.length)];
+    }
+
+    private record Key(Language lang, String word, Pos pos) {
+    }
+
+    private static class Segment {
+        private final Map<Key, String> entries;
+
+        Segment(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized String get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, String value) {
+            entries.put(key, value);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+}
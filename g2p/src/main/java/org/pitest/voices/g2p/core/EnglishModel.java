@@ -7,11 +7,9 @@ import org.pitest.voices.g2p.core.syllables.RulesSyllabiliser;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static org.pitest.voices.g2p.util.English.CONSONANTS;
@@ -84,7 +82,7 @@ public class EnglishModel implements G2PModel {
             new SuffixRule("^lo$", "əʊ", false)            // ** piper addition
     );
 
-    private static final List<PhonemeRule> PHONEME_RULES = Arrays.asList(
+    static final List<PhonemeRule> PHONEME_RULES = Arrays.asList(
             // Silent letter combinations
             new PhonemeRule("^pn", "n"),                   // pneumonia, pneumatic
             new PhonemeRule("^ps", "s"),                   // psychology, psalm
@@ -230,6 +228,52 @@ public class EnglishModel implements G2PModel {
 
     );
 
+    private static final PhonemeRules COMPILED_RULES = new PhonemeRules(PHONEME_RULES);
+
+    private static final Pattern ACRONYM = Pattern.compile("^([A-Z]\\.?){2,8}$");
+    private static final Pattern DOUBLED_CONSONANT = Pattern.compile("([b-df-hj-np-tv-z])\\1");
+
+    private static final List<Pattern> COMPOUND_PATTERNS = Arrays.asList(
+            Pattern.compile("\\w{4,}wide$"),    // worldwide, nationwide
+            Pattern.compile("\\w{3,}land$"),    // homeland, woodland
+            Pattern.compile("\\w{3,}work$"),    // homework, network
+            Pattern.compile("\\w{3,}time$"),    // sometime, longtime
+            Pattern.compile("\\w{3,}way$"),     // highway, railway
+            Pattern.compile("\\w{3,}ward$"),    // forward, backward
+            Pattern.compile("hundred"),         // hundred (often in compounds)
+            Pattern.compile("\\w{3,}side$"),    // outside, inside
+            Pattern.compile("\\w{3,}where$")    // somewhere, anywhere
+    );
+
+    private static final Map<String, String> VOWEL_REDUCTIONS = Map.of(
+            "æ", "ə",   // cat -> ə in unstressed (but not in final syllables)
+            "ɛ", "ə",   // bed -> ə in unstressed
+            "ɪ", "ɪ",   // keep ɪ - common in unstressed syllables
+            "ɑ", "ə",   // cot -> ə in unstressed
+            "ʌ", "ə",   // cut -> ə in unstressed
+            // Don't reduce diphthongs as aggressively
+            "eɪ", "eɪ", // keep in most cases
+            "aɪ", "aɪ", // keep in most cases
+            "ɔɪ", "ɔɪ", // keep in most cases
+            "oʊ", "oʊ", // keep in most cases
+            "aʊ", "aʊ"  // keep in most cases
+    );
+
+    private static final Map<String, String> FINAL_SYLLABLE_REDUCTIONS = Map.of(
+            "æ", "ə",   // cat -> ə
+            "ɛ", "ɪ",   // bed -> ɪ in final position (like "pocket")
+            "ɑ", "ə",   // cot -> ə
+            "ʌ", "ə"    // cut -> ə
+    );
+
+    private static final Map<String, String> SHORT_TO_LONG = Map.of(
+            "æ", "eɪ",   // cap -> cape
+            "ɛ", "i",    // met -> mete
+            "ɪ", "aɪ",   // bit -> bite
+            "ɑ", "oʊ",   // hop -> hope
+            "ʌ", "ju"    // cut -> cute
+    );
+
     private final WordToSyllables syllabify;
     private final Dictionary dictionary;
 
@@ -315,7 +359,7 @@ public class EnglishModel implements G2PModel {
     }
 
     private String handleAcronyms(Trace t, String word) {
-        if (word.matches("^([A-Z]\\.?){2,8}$")) {
+        if (ACRONYM.matcher(word).matches()) {
             boolean containsPeriods = word.contains(".");
             String[] letters = word.replaceAll("\\.", "").split("");
             List<String> letterPronunciations = new ArrayList<>();
@@ -689,20 +733,7 @@ public class EnglishModel implements G2PModel {
         // Detect potential compound words based on patterns
         if (syllables.size() < 2) return false;
 
-        // Common compound patterns
-        List<Pattern> compoundPatterns = Arrays.asList(
-                Pattern.compile("\\w{4,}wide$"),    // worldwide, nationwide
-                Pattern.compile("\\w{3,}land$"),    // homeland, woodland
-                Pattern.compile("\\w{3,}work$"),    // homework, network
-                Pattern.compile("\\w{3,}time$"),    // sometime, longtime
-                Pattern.compile("\\w{3,}way$"),     // highway, railway
-                Pattern.compile("\\w{3,}ward$"),    // forward, backward
-                Pattern.compile("hundred"),         // hundred (often in compounds)
-                Pattern.compile("\\w{3,}side$"),    // outside, inside
-                Pattern.compile("\\w{3,}where$")    // somewhere, anywhere
-        );
-
-        for (Pattern pattern : compoundPatterns) {
+        for (Pattern pattern : COMPOUND_PATTERNS) {
             if (pattern.matcher(word).find()) {
                 return true;
             }
@@ -725,7 +756,7 @@ public class EnglishModel implements G2PModel {
         }
 
         // Handle doubled consonants
-        remaining = remaining.replaceAll("([b-df-hj-np-tv-z])\\1", "$1");
+        remaining = DOUBLED_CONSONANT.matcher(remaining).replaceAll("$1");
 
         // Silent 'e' detection (but exclude common function words like "the")
         boolean endsWithSilentE = isLastSyllable && syllable.length() > 1 && syllable.endsWith("e") &&
@@ -738,21 +769,15 @@ public class EnglishModel implements G2PModel {
         }
 
         // Apply phoneme rules
-        while (!remaining.isEmpty()) {
-            boolean matchFound = false;
-            for (PhonemeRule rule : PHONEME_RULES) {
-                Pattern pattern = Pattern.compile(rule.pattern);
-                Matcher matcher = pattern.matcher(remaining);
-                if (matcher.find()) {
-                    t.phonemeRule(rule.pattern, remaining);
-                    phonemes.add(rule.ipa);
-                    remaining = remaining.substring(matcher.group().length());
-                    matchFound = true;
-                    break;
-                }
-            }
-            if (!matchFound) {
-                remaining = remaining.substring(1);
+        int pos = 0;
+        while (pos < remaining.length()) {
+            PhonemeRule rule = COMPILED_RULES.find(remaining, pos);
+            if (rule != null) {
+                t.phonemeRule(rule.pattern, remaining.substring(pos));
+                phonemes.add(rule.ipa);
+                pos += rule.match(remaining, pos);
+            } else {
+                pos++;
             }
         }
 
@@ -760,21 +785,8 @@ public class EnglishModel implements G2PModel {
         if (!isStressed && syllableIndex > 0 && !isLastSyllable) {
             // More conservative vowel reduction - only for clearly unstressed syllables
             for (int i = 0; i < phonemes.size(); i++) {
-                Map<String, String> vowelReductions = new HashMap<>();
-                vowelReductions.put("æ", "ə");   // cat -> ə in unstressed (but not in final syllables)
-                vowelReductions.put("ɛ", "ə");   // bed -> ə in unstressed
-                vowelReductions.put("ɪ", "ɪ");   // keep ɪ - common in unstressed syllables
-                vowelReductions.put("ɑ", "ə");   // cot -> ə in unstressed
-                vowelReductions.put("ʌ", "ə");   // cut -> ə in unstressed
-                // Don't reduce diphthongs as aggressively
-                vowelReductions.put("eɪ", "eɪ"); // keep in most cases
-                vowelReductions.put("aɪ", "aɪ"); // keep in most cases
-                vowelReductions.put("ɔɪ", "ɔɪ"); // keep in most cases
-                vowelReductions.put("oʊ", "oʊ"); // keep in most cases
-                vowelReductions.put("aʊ", "aʊ"); // keep in most cases
-
-                if (vowelReductions.containsKey(phonemes.get(i))) {
-                    phonemes.set(i, vowelReductions.get(phonemes.get(i)));
+                if (VOWEL_REDUCTIONS.containsKey(phonemes.get(i))) {
+                    phonemes.set(i, VOWEL_REDUCTIONS.get(phonemes.get(i)));
                 }
             }
         }
@@ -782,30 +794,17 @@ public class EnglishModel implements G2PModel {
         // Special handling for final unstressed syllables (less reduction)
         if (!isStressed && isLastSyllable && syllableIndex > 0) {
             for (int i = 0; i < phonemes.size(); i++) {
-                Map<String, String> finalSyllableReductions = new HashMap<>();
-                finalSyllableReductions.put("æ", "ə");   // cat -> ə
-                finalSyllableReductions.put("ɛ", "ɪ");   // bed -> ɪ in final position (like "pocket")
-                finalSyllableReductions.put("ɑ", "ə");   // cot -> ə
-                finalSyllableReductions.put("ʌ", "ə");   // cut -> ə
-
-                if (finalSyllableReductions.containsKey(phonemes.get(i))) {
-                    phonemes.set(i, finalSyllableReductions.get(phonemes.get(i)));
+                if (FINAL_SYLLABLE_REDUCTIONS.containsKey(phonemes.get(i))) {
+                    phonemes.set(i, FINAL_SYLLABLE_REDUCTIONS.get(phonemes.get(i)));
                 }
             }
         }
 
         // Magic 'e' rule for stressed syllables
         if (endsWithSilentE && isStressed && !phonemes.isEmpty()) {
-            Map<String, String> shortToLong = new HashMap<>();
-            shortToLong.put("æ", "eɪ");   // cap -> cape
-            shortToLong.put("ɛ", "i");    // met -> mete
-            shortToLong.put("ɪ", "aɪ");   // bit -> bite
-            shortToLong.put("ɑ", "oʊ");   // hop -> hope
-            shortToLong.put("ʌ", "ju");   // cut -> cute
-
             for (int i = phonemes.size() - 1; i >= 0; i--) {
-                if (shortToLong.containsKey(phonemes.get(i))) {
-                    phonemes.set(i, shortToLong.get(phonemes.get(i)));
+                if (SHORT_TO_LONG.containsKey(phonemes.get(i))) {
+                    phonemes.set(i, SHORT_TO_LONG.get(phonemes.get(i)));
                     break;
                 }
             }
@@ -820,29 +819,18 @@ public class EnglishModel implements G2PModel {
     }
 }
 
-class PhonemeRule {
-    final String pattern;
-    final String ipa;
-
-    PhonemeRule(String pattern, String ipa) {
-        this.pattern = pattern;
-        this.ipa = ipa;
-    }
-
-}
-
 class SuffixRule {
-    private final String pattern;
+    private final Pattern pattern;
     final String ipa;
     final boolean attractsStress;
 
     SuffixRule(String pattern, String ipa, boolean attractsStress) {
-        this.pattern = pattern;
+        this.pattern = Pattern.compile(pattern);
         this.ipa = ipa;
         this.attractsStress = attractsStress;
     }
 
     boolean matches(String word) {
-        return word.matches(pattern);
+        return pattern.matcher(word).matches();
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package org.pitest.voices.g2p.core;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class PhonemeRule {
+    final String pattern;
+    final String ipa;
+
+    // the parts of a simple rule, literal is null if the rule must be run as a regex
+    private final String literal;
+    private final String follow;
+    private final String followClass;
+    private final boolean atEnd;
+    private final Pattern regex;
+
+    PhonemeRule(String pattern, String ipa) {
+        this.pattern = pattern;
+        this.ipa = ipa;
+
+        SimpleRule simple = SimpleRule.parse(pattern);
+        if (simple != null) {
+            this.literal = simple.literal;
+            this.follow = simple.follow;
+            this.followClass = simple.followClass;
+            this.atEnd = simple.atEnd;
+            this.regex = null;
+        } else {
+            this.literal = null;
+            this.follow = null;
+            this.followClass = null;
+            this.atEnd = false;
+            this.regex = Pattern.compile(pattern);
+        }
+    }
+
+    boolean canStartWith(char c) {
+        return literal == null || literal.charAt(0) == c;
+    }
+
+    /**
+     * @param text text to match
+     * @param from index the remaining text starts at
+     * @return number of characters consumed by the rule, or -1 if it does not match
+     */
+    int match(String text, int from) {
+        if (literal == null) {
+            Matcher matcher = regex.matcher(text).region(from, text.length());
+            return matcher.find() ? matcher.group().length() : -1;
+        }
+
+        if (!text.startsWith(literal, from)) {
+            return -1;
+        }
+        int after = from + literal.length();
+        if (!text.startsWith(follow, after)) {
+            return -1;
+        }
+        if (followClass != null && (after == text.length() || followClass.indexOf(text.charAt(after)) == -1)) {
+            return -1;
+        }
+        if (atEnd && after + follow.length() != text.length()) {
+            return -1;
+        }
+        return literal.length();
+    }
+
+    private static class SimpleRule {
+        String literal;
+        String follow = "";
+        String followClass;
+        boolean atEnd;
+
+        // accepts ^abc, ^abc$, ^abc(?=def), ^abc(?=def$) and ^abc(?=[def])
+        static SimpleRule parse(String pattern) {
+            if (!pattern.startsWith("^")) {
+                return null;
+            }
+            SimpleRule rule = new SimpleRule();
+            int i = 1;
+            int start = i;
+            while (i < pattern.length() && isLetter(pattern.charAt(i))) {
+                i++;
+            }
+            rule.literal = pattern.substring(start, i);
+            if (rule.literal.isEmpty()) {
+                return null;
+            }
+
+            String rest = pattern.substring(i);
+            if (rest.startsWith("(?=") && rest.endsWith(")")) {
+                rest = rest.substring(3, rest.length() - 1);
+                if (rest.endsWith("$")) {
+                    rule.atEnd = true;
+                    rest = rest.substring(0, rest.length() - 1);
+                }
+                if (rest.startsWith("[") && rest.endsWith("]")) {
+                    rule.followClass = rest.substring(1, rest.length() - 1);
+                    if (rule.atEnd || rule.followClass.isEmpty() || !allLetters(rule.followClass)) {
+                        return null;
+                    }
+                } else if (allLetters(rest)) {
+                    rule.follow = rest;
+                } else {
+                    return null;
+                }
+                return rule;
+            }
+
+            if (rest.equals("$")) {
+                rule.atEnd = true;
+                return rule;
+            }
+
+            return rest.isEmpty() ? rule : null;
+        }
+
+        private static boolean allLetters(String s) {
+            return s.chars().allMatch(c -> isLetter((char) c));
+        }
+
+        private static boolean isLetter(char c) {
+            return c >= 'a' && c <= 'z';
+        }
+    }
+
+}
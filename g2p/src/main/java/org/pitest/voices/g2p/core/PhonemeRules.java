@@ -0,0 +1,50 @@
+package org.pitest.voices.g2p.core;
+
+import java.util.List;
+
+/**
+ * Letter to sound rules compiled once into a table indexed by the first character
+ * of the remaining text. Rules of the form ^literal, optionally followed by $ or a
+ * simple lookahead, are matched by comparing characters. Anything more complex falls
+ * back to a precompiled regex.
+ *
+ * Rules are tried in their original order, so the first rule to match is the same
+ * rule that would match if each pattern were tried in turn.
+ */
+class PhonemeRules {
+
+    private static final int ASCII = 128;
+
+    private final List<PhonemeRule> rules;
+    private final PhonemeRule[][] byFirstChar = new PhonemeRule[ASCII][];
+
+    PhonemeRules(List<PhonemeRule> rules) {
+        this.rules = rules;
+        for (char c = 0; c < ASCII; c++) {
+            byFirstChar[c] = candidates(c);
+        }
+    }
+
+    /**
+     * Finds the first rule matching at the start of the text
+     * @param text remaining text
+     * @param from index to match from
+     * @return the matching rule, or null if there is none
+     */
+    PhonemeRule find(String text, int from) {
+        char first = text.charAt(from);
+        PhonemeRule[] candidates = first < ASCII ? byFirstChar[first] : candidates(first);
+        for (PhonemeRule rule : candidates) {
+            if (rule.match(text, from) != -1) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private PhonemeRule[] candidates(char c) {
+        return rules.stream()
+                .filter(r -> r.canStartWith(c))
+                .toArray(PhonemeRule[]::new);
+    }
+}
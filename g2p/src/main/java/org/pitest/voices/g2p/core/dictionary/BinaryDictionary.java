@@ -0,0 +1,356 @@
+package org.pitest.voices.g2p.core.dictionary;
+
+import org.pitest.voices.g2p.core.Dictionary;
+import org.pitest.voices.g2p.core.pos.Pos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read only dictionary held in the binary format produced by BinaryDictionaryWriter.
+ * Nothing is parsed up front. Words are looked up directly in the (usually memory
+ * mapped) buffer, so loading is near instant, the dictionary occupies almost no heap,
+ * and processes mapping the same file share its pages.
+ *
+ * Layout, all ints big endian
+ * <pre>
+ * header      magic, version, entries, blocks, max key length, keys, ipa and homograph offsets
+ * block index offset of the first key in each block
+ * keys        sorted by UTF-8 bytes, in blocks of BLOCK_SIZE. Each entry is varints for the
+ *             prefix shared with the previous key (0 at the start of a block), suffix length,
+ *             the suffix bytes, then varints for the ipa offset and length
+ * ipa         UTF-8 pronunciations
+ * homographs  varint count, then length prefixed word\0POS keys and pronunciations
+ * </pre>
+ */
+public class BinaryDictionary implements Dictionary {
+
+    static final int MAGIC = 0x56444943; // VDIC
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 8;
+    static final int BLOCK_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int entries;
+    private final int blocks;
+    private final int maxKeyLength;
+    private final int ipaOffset;
+    private final Map<POSVariant, String> posHomographs;
+
+    // decoded only if requested
+    private volatile Set<String> words;
+
+    BinaryDictionary(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " binary dictionary");
+        }
+        this.entries = buffer.getInt(8);
+        this.blocks = buffer.getInt(12);
+        this.maxKeyLength = buffer.getInt(16);
+        this.ipaOffset = buffer.getInt(24);
+        this.posHomographs = readHomographs(buffer.getInt(28));
+    }
+
+    /**
+     * Maps a dictionary file into memory.
+     * @param path file to map
+     * @return a dictionary
+     */
+    public static BinaryDictionary map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new BinaryDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads a dictionary from the classpath. Resources on the file system are mapped,
+     * resources inside jars are copied to a temporary file which is then mapped.
+     * @param resource name of the resource
+     * @return a dictionary
+     */
+    public static BinaryDictionary fromResource(String resource) {
+        return fromUrl(findResource(resource));
+    }
+
+    static BinaryDictionary fromUrl(URL url) {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return map(Path.of(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        try (InputStream is = url.openStream()) {
+            Path temp = Files.createTempFile("voices-dict", ".tmp");
+            try {
+                Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
+                return map(temp);
+            } finally {
+                deleteMapped(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copies a dictionary from the classpath to a directory, if not already present,
+     * then maps it, so that all processes using the directory share one copy.
+     * @param resource name of the resource
+     * @param dir directory to copy to
+     * @return a dictionary
+     */
+    public static BinaryDictionary extractAndMap(String resource, Path dir) {
+        URL url = findResource(resource);
+        Path target = dir.resolve(Path.of(resource).getFileName().toString());
+        try {
+            long expected = url.openConnection().getContentLengthLong();
+            if (!Files.exists(target) || Files.size(target) != expected) {
+                Files.createDirectories(dir);
+                // copy then move, so other processes never map a partial file
+                Path temp = Files.createTempFile(dir, "dict", ".tmp");
+                try (InputStream is = url.openStream()) {
+                    Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return map(target);
+    }
+
+    @Override
+    public boolean containsWord(String word) {
+        return find(word) != -1;
+    }
+
+    @Override
+    public Set<String> words() {
+        Set<String> w = words;
+        if (w == null) {
+            w = Collections.unmodifiableSet(decodeWords());
+            words = w;
+        }
+        return w;
+    }
+
+    @Override
+    public Optional<String> get(String word, Pos pos) {
+        if (!posHomographs.isEmpty()) {
+            String specialised = posHomographs.get(new POSVariant(pos, word));
+            if (specialised != null) {
+                return Optional.of(specialised);
+            }
+        }
+
+        int entry = find(word);
+        if (entry == -1) {
+            return Optional.empty();
+        }
+        int position = skipKey(entry);
+        int ipaStart = readVarint(position);
+        int ipaLength = readVarint(skipVarint(position));
+        return Optional.of(utf8(ipaOffset + ipaStart, ipaLength));
+    }
+
+    // returns the position of the matching entry, or -1
+    private int find(String word) {
+        if (entries == 0) {
+            return -1;
+        }
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        if (key.length > maxKeyLength) {
+            return -1;
+        }
+
+        int block = findBlock(key);
+        if (block == -1) {
+            return -1;
+        }
+
+        byte[] current = new byte[maxKeyLength];
+        int position = blockStart(block);
+        int inBlock = Math.min(BLOCK_SIZE, entries - block * BLOCK_SIZE);
+        for (int i = 0; i != inBlock; i++) {
+            int entry = position;
+            int shared = readVarint(position);
+            position = skipVarint(position);
+            int suffix = readVarint(position);
+            position = skipVarint(position);
+            buffer.get(position, current, shared, suffix);
+            position += suffix;
+
+            int comparison = compare(current, shared + suffix, key);
+            if (comparison == 0) {
+                return entry;
+            }
+            if (comparison > 0) {
+                return -1;
+            }
+            // ipa offset and length
+            position = skipVarint(skipVarint(position));
+        }
+        return -1;
+    }
+
+    // last block whose first key is not greater than the key
+    private int findBlock(byte[] key) {
+        int low = 0;
+        int high = blocks - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compareFirstKey(mid, key) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private int compareFirstKey(int block, byte[] key) {
+        // first key in a block shares nothing, so is stored whole
+        int position = skipVarint(blockStart(block));
+        int length = readVarint(position);
+        position = skipVarint(position);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i != common; i++) {
+            int c = Byte.compareUnsigned(buffer.get(position + i), key[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private static int compare(byte[] current, int length, byte[] key) {
+        return Arrays.compareUnsigned(current, 0, length, key, 0, key.length);
+    }
+
+    private int blockStart(int block) {
+        return buffer.getInt((HEADER_INTS + block) * Integer.BYTES);
+    }
+
+    private int skipKey(int entry) {
+        int position = skipVarint(entry);
+        int suffix = readVarint(position);
+        return skipVarint(position) + suffix;
+    }
+
+    private Set<String> decodeWords() {
+        Set<String> result = new HashSet<>(entries * 2);
+        if (entries == 0) {
+            return result;
+        }
+        byte[] current = new byte[maxKeyLength];
+        int position = blockStart(0);
+        for (int i = 0; i != entries; i++) {
+            int shared = readVarint(position);
+            position = skipVarint(position);
+            int suffix = readVarint(position);
+            position = skipVarint(position);
+            buffer.get(position, current, shared, suffix);
+            position = skipVarint(skipVarint(position + suffix));
+            result.add(new String(current, 0, shared + suffix, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private Map<POSVariant, String> readHomographs(int offset) {
+        int position = offset;
+        int count = readVarint(position);
+        position = skipVarint(position);
+        Map<POSVariant, String> result = new HashMap<>();
+        for (int i = 0; i != count; i++) {
+            int keyLength = readVarint(position);
+            position = skipVarint(position);
+            String key = utf8(position, keyLength);
+            position += keyLength;
+            int ipaLength = readVarint(position);
+            position = skipVarint(position);
+            String ipa = utf8(position, ipaLength);
+            position += ipaLength;
+
+            int separator = key.indexOf('\0');
+            result.put(new POSVariant(Pos.valueOf(key.substring(separator + 1)), key.substring(0, separator)), ipa);
+        }
+        return result;
+    }
+
+    static String homographKey(String word, Pos pos) {
+        return word + '\0' + pos.name();
+    }
+
+    private String utf8(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarint(int position) {
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position++);
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    private int skipVarint(int position) {
+        while ((buffer.get(position) & 0x80) != 0) {
+            position++;
+        }
+        return position + 1;
+    }
+
+    // the mapping outlives the file where the platform allows mapped files to be deleted
+    private static void deleteMapped(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private static URL findResource(String resource) {
+        URL url = BinaryDictionary.class.getResource(resource);
+        if (url == null) {
+            throw new IllegalStateException("Could not find resource " + resource);
+        }
+        return url;
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryDictionary{" +
+                "entries=" + entries +
+                ", posHomographs=" + posHomographs.size() +
+                '}';
+    }
+}
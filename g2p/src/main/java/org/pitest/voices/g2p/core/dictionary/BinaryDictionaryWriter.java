@@ -0,0 +1,152 @@
+package org.pitest.voices.g2p.core.dictionary;
+
+import org.pitest.voices.g2p.core.pos.Pos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.pitest.voices.g2p.core.dictionary.BinaryDictionary.BLOCK_SIZE;
+import static org.pitest.voices.g2p.core.dictionary.BinaryDictionary.HEADER_INTS;
+import static org.pitest.voices.g2p.core.dictionary.BinaryDictionary.MAGIC;
+import static org.pitest.voices.g2p.core.dictionary.BinaryDictionary.VERSION;
+
+/**
+ * Converts dictionaries in the text word=ipa|POS format read by MapDictionary into
+ * the binary format read by BinaryDictionary. Run at build time by the dictionary
+ * modules.
+ */
+public class BinaryDictionaryWriter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: BinaryDictionaryWriter <source.dict> <target>");
+        }
+        Path target = Path.of(args[1]);
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try (OutputStream os = Files.newOutputStream(target)) {
+            write(Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8), os);
+        }
+    }
+
+    public static void write(List<String> lines, OutputStream os) {
+        Map<byte[], byte[]> words = new TreeMap<>(Arrays::compareUnsigned);
+        Map<byte[], byte[]> homographs = new TreeMap<>(Arrays::compareUnsigned);
+
+        // same interpretation as MapDictionary.fromList, later lines win
+        for (String line : lines) {
+            if (line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("=");
+            String word = parts[0];
+            if (parts[1].contains("|")) {
+                String[] posParts = parts[1].split("\\|");
+                for (int i = 1; i < posParts.length; i++) {
+                    Pos pos = Pos.valueOf(posParts[i]);
+                    homographs.put(utf8(BinaryDictionary.homographKey(word, pos)), utf8(posParts[0]));
+                }
+            } else {
+                words.put(utf8(word), utf8(parts[1]));
+            }
+        }
+
+        try {
+            writeTo(words, homographs, os);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeTo(Map<byte[], byte[]> words, Map<byte[], byte[]> homographs, OutputStream os) throws IOException {
+        Section keys = new Section();
+        Section ipa = new Section();
+        int blockCount = (words.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] blockStarts = new int[blockCount];
+        int maxKeyLength = 0;
+
+        byte[] previous = new byte[0];
+        int i = 0;
+        for (Map.Entry<byte[], byte[]> entry : words.entrySet()) {
+            byte[] key = entry.getKey();
+            maxKeyLength = Math.max(maxKeyLength, key.length);
+            int shared = 0;
+            if (i % BLOCK_SIZE == 0) {
+                blockStarts[i / BLOCK_SIZE] = keys.size();
+            } else {
+                shared = sharedPrefix(previous, key);
+            }
+            keys.varint(shared);
+            keys.varint(key.length - shared);
+            keys.write(key, shared, key.length - shared);
+            keys.varint(ipa.size());
+            keys.varint(entry.getValue().length);
+            ipa.write(entry.getValue());
+            previous = key;
+            i++;
+        }
+
+        Section homographSection = new Section();
+        homographSection.varint(homographs.size());
+        for (Map.Entry<byte[], byte[]> entry : homographs.entrySet()) {
+            homographSection.bytes(entry.getKey());
+            homographSection.bytes(entry.getValue());
+        }
+
+        int keysOffset = (HEADER_INTS + blockCount) * Integer.BYTES;
+        int ipaOffset = keysOffset + keys.size();
+        int homographOffset = ipaOffset + ipa.size();
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(words.size());
+        out.writeInt(blockCount);
+        out.writeInt(maxKeyLength);
+        out.writeInt(keysOffset);
+        out.writeInt(ipaOffset);
+        out.writeInt(homographOffset);
+        for (int start : blockStarts) {
+            out.writeInt(keysOffset + start);
+        }
+        keys.writeTo(out);
+        ipa.writeTo(out);
+        homographSection.writeTo(out);
+        out.flush();
+    }
+
+    private static int sharedPrefix(byte[] a, byte[] b) {
+        int mismatch = Arrays.mismatch(a, b);
+        return mismatch == -1 ? a.length : mismatch;
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class Section extends ByteArrayOutputStream {
+        void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void bytes(byte[] value) {
+            varint(value.length);
+            write(value, 0, value.length);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.pitest.voices.g2p.core.dictionary;
 
 import org.pitest.voices.g2p.core.Dictionary;
 import org.pitest.voices.g2p.core.pos.Pos;
+import org.pitest.voices.g2p.util.Resource;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -161,4 +162,18 @@ public class Dictionaries {
         return fromList(Files.readAllLines(path, StandardCharsets.UTF_8));
     }
 
+    /**
+     * Loads the binary form of a dictionary if it was generated by the build,
+     * otherwise parses the text form.
+     * @param binary name of the binary resource
+     * @param text name of the text resource
+     * @return a dictionary
+     */
+    public static Dictionary fromResources(String binary, String text) {
+        if (Dictionaries.class.getResource(binary) != null) {
+            return BinaryDictionary.fromResource(binary);
+        }
+        return fromList(Resource.read(text));
+    }
+
 }
@@ -0,0 +1,140 @@
+package org.pitest.voices.g2p.core;
+
+import org.junit.jupiter.api.Test;
+import org.pitest.voices.Language;
+import org.pitest.voices.g2p.core.pos.Pos;
+import org.pitest.voices.g2p.core.tracing.Trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingG2PModelTest {
+
+    AtomicInteger calls = new AtomicInteger();
+    G2PModel child = new G2PModel() {
+        @Override
+        public String predict(Trace trace, Language lang, String word, Pos pos) {
+            calls.incrementAndGet();
+            return word + pos;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    CachingG2PModel underTest = new CachingG2PModel(child, 1000);
+
+    @Test
+    void servesRepeatedWordsFromCache() {
+        underTest.predict(Trace.noTrace(), Language.en_GB, "cat", Pos.NN);
+        var actual = underTest.predict(Trace.noTrace(), Language.en_GB, "cat", Pos.NN);
+
+        assertThat(actual).isEqualTo("catNN");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(underTest.stats()).isEqualTo(new CacheStats(1, 1, 1));
+    }
+
+    @Test
+    void keysOnLanguageAndPos() {
+        underTest.predict(Trace.noTrace(), Language.en_GB, "read", Pos.VB);
+        underTest.predict(Trace.noTrace(), Language.en_GB, "read", Pos.VBD);
+        underTest.predict(Trace.noTrace(), Language.en_US, "read", Pos.VB);
+
+        assertThat(calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void keysOnExactCase() {
+        underTest.predict(Trace.noTrace(), Language.en_GB, "Reading", Pos.NN);
+        underTest.predict(Trace.noTrace(), Language.en_GB, "reading", Pos.NN);
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotFoldAcronyms() {
+        underTest.predict(Trace.noTrace(), Language.en_GB, "US", Pos.NN);
+        underTest.predict(Trace.noTrace(), Language.en_GB, "us", Pos.NN);
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void tracesHits() {
+        List<String> results = new ArrayList<>();
+        Trace trace = new RecordingTrace(results);
+
+        underTest.predict(Trace.noTrace(), Language.en_GB, "cat", Pos.NN);
+        underTest.predict(trace, Language.en_GB, "cat", Pos.NN);
+
+        assertThat(results).containsExactly("cat -> catNN");
+    }
+
+    @Test
+    void evictsWhenFull() {
+        var small = new CachingG2PModel(child, 16);
+        for (int i = 0; i != 1000; i++) {
+            small.predict(Trace.noTrace(), Language.en_GB, "word" + i, Pos.NN);
+        }
+        assertThat(small.stats().size()).isLessThanOrEqualTo(16);
+    }
+
+    @Test
+    void neverHoldsMoreThanRequested() {
+        for (int size : new int[]{1, 5, 17, 100}) {
+            var cache = new CachingG2PModel(child, size);
+            for (int i = 0; i != 1000; i++) {
+                cache.predict(Trace.noTrace(), Language.en_GB, "word" + i, Pos.NN);
+            }
+            assertThat(cache.stats().size()).isLessThanOrEqualTo(size).isPositive();
+        }
+    }
+
+    private static class RecordingTrace implements Trace {
+        private final List<String> results;
+        private final String word;
+
+        RecordingTrace(List<String> results) {
+            this(results, "");
+        }
+
+        RecordingTrace(List<String> results, String word) {
+            this.results = results;
+            this.word = word;
+        }
+
+        @Override
+        public Trace start(String word, Pos pos) {
+            return new RecordingTrace(results, word);
+        }
+
+        @Override
+        public void result(String phonemes) {
+            results.add(word + " -> " + phonemes);
+        }
+
+        @Override
+        public void dictionaryHit(String word, Pos pos, String s) {
+        }
+
+        @Override
+        public void morphology(String base) {
+        }
+
+        @Override
+        public void phonemeRule(String pattern, String remaining) {
+        }
+
+        @Override
+        public void syllables(List<String> syllables) {
+        }
+
+        @Override
+        public void unknownPhoneme(String phoneme) {
+        }
+    }
+}
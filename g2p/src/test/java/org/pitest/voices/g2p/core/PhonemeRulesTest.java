@@ -0,0 +1,76 @@
+package org.pitest.voices.g2p.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhonemeRulesTest {
+
+    PhonemeRules underTest = new PhonemeRules(EnglishModel.PHONEME_RULES);
+
+    @Test
+    void matchesSameRuleAsRegexes() {
+        for (String text : sampleText()) {
+            for (int from = 0; from < text.length(); from++) {
+                String remaining = text.substring(from);
+                PhonemeRule expected = firstRegexMatch(remaining);
+                PhonemeRule actual = underTest.find(text, from);
+                assertThat(actual).as(remaining).isSameAs(expected);
+                if (expected != null) {
+                    assertThat(actual.match(text, from)).as(remaining).isEqualTo(regexMatchLength(expected, remaining));
+                }
+            }
+        }
+    }
+
+    @Test
+    void fallsBackToRegexForComplexPatterns() {
+        var rule = new PhonemeRule("^[xz]+", "z");
+        assertThat(rule.match("azzxb", 1)).isEqualTo(3);
+        assertThat(rule.match("azzxb", 0)).isEqualTo(-1);
+    }
+
+    @Test
+    void handlesLookaheadAtEnd() {
+        var rule = new PhonemeRule("^th(?=ing$)", "θ");
+        assertThat(rule.match("xthing", 1)).isEqualTo(2);
+        assertThat(rule.match("xthings", 1)).isEqualTo(-1);
+    }
+
+    private PhonemeRule firstRegexMatch(String remaining) {
+        for (PhonemeRule rule : EnglishModel.PHONEME_RULES) {
+            if (Pattern.compile(rule.pattern).matcher(remaining).find()) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private int regexMatchLength(PhonemeRule rule, String remaining) {
+        Matcher m = Pattern.compile(rule.pattern).matcher(remaining);
+        m.find();
+        return m.group().length();
+    }
+
+    private static List<String> sampleText() {
+        List<String> text = new ArrayList<>(List.of("thing", "things", "through", "think", "the", "pneumonia",
+                "thumb", "mb", "gh", "ought", "cow", "yes", "by", "queue", "städt", "x"));
+        Random random = new Random(42);
+        String letters = "aeiouythrsgcnkmbpwlqxzdfjv";
+        for (int i = 0; i != 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j != length; j++) {
+                sb.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            text.add(sb.toString());
+        }
+        return text;
+    }
+}
@@ -0,0 +1,118 @@
+package org.pitest.voices.g2p.core.dictionary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pitest.voices.g2p.core.pos.Pos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryDictionaryTest {
+
+    List<String> lines = List.of(
+            "# comment",
+            "cat=kˈat",
+            "catalogue=kˈatəlˌɒɡ",
+            "cats=kˈats",
+            "'em=əm",
+            "café=kˈafeɪ",
+            "read=ɹˈɛd|VBD",
+            "read=ɹˈiːd",
+            "cat=kˈæt");
+
+    @Test
+    void findsWordsInEveryPosition() {
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i != 1000; i++) {
+            many.add("word" + i + "=ipa" + i);
+        }
+        var underTest = write(many);
+
+        for (int i = 0; i != 1000; i++) {
+            assertThat(underTest.get("word" + i, Pos.OTHER)).contains("ipa" + i);
+        }
+        assertThat(underTest.containsWord("word1000")).isFalse();
+        assertThat(underTest.containsWord("word")).isFalse();
+        assertThat(underTest.containsWord("a")).isFalse();
+        assertThat(underTest.containsWord("zzz")).isFalse();
+    }
+
+    @Test
+    void matchesTextDictionary() {
+        var expected = MapDictionary.fromList(lines);
+        var underTest = write(lines);
+
+        assertThat(underTest.words()).isEqualTo(expected.words());
+        for (String word : expected.words()) {
+            for (Pos pos : Pos.values()) {
+                assertThat(underTest.get(word, pos)).as(word + " " + pos).isEqualTo(expected.get(word, pos));
+            }
+        }
+    }
+
+    @Test
+    void laterEntriesReplaceEarlierOnes() {
+        assertThat(write(lines).get("cat", Pos.NN)).contains("kˈæt");
+    }
+
+    @Test
+    void resolvesHomographsByPos() {
+        var underTest = write(lines);
+        assertThat(underTest.get("read", Pos.VBD)).contains("ɹˈɛd");
+        assertThat(underTest.get("read", Pos.VB)).contains("ɹˈiːd");
+    }
+
+    @Test
+    void handlesEmptyDictionaries() {
+        var underTest = write(List.of());
+        assertThat(underTest.containsWord("cat")).isFalse();
+        assertThat(underTest.words()).isEmpty();
+    }
+
+    @Test
+    void mapsFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("test.vdict");
+        Files.write(file, bytes(lines));
+
+        assertThat(BinaryDictionary.map(file).get("café", Pos.OTHER)).contains("kˈafeɪ");
+    }
+
+    @Test
+    void mapsResourcesInsideJars(@TempDir Path dir) throws IOException {
+        Path jar = dir.resolve("dict.jar");
+        try (var out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("dictionary/test.vdict"));
+            out.write(bytes(lines));
+        }
+        URL url = new URL("jar:" + jar.toUri() + "!/dictionary/test.vdict");
+
+        assertThat(BinaryDictionary.fromUrl(url).get("café", Pos.OTHER)).contains("kˈafeɪ");
+    }
+
+    @Test
+    void rejectsOtherFormats() {
+        assertThatThrownBy(() -> new BinaryDictionary(ByteBuffer.wrap(new byte[64])))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BinaryDictionary write(List<String> lines) {
+        return new BinaryDictionary(ByteBuffer.wrap(bytes(lines)));
+    }
+
+    private static byte[] bytes(List<String> lines) {
+        var bos = new ByteArrayOutputStream();
+        BinaryDictionaryWriter.write(lines, bos);
+        return bos.toByteArray();
+    }
+}
@@ -1,13 +1,13 @@
 package org.pitest.voices.kokoro;
 
-import ai.onnxruntime.OnnxTensor;
-import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
-import ai.onnxruntime.OrtSession;
+import org.pitest.voices.Cancellation;
 import org.pitest.voices.Model;
 import org.pitest.voices.ModelParameters;
+import org.pitest.voices.Parallelism;
 import org.pitest.voices.Pause;
 import org.pitest.voices.Resource;
+import org.pitest.voices.SessionLoader;
 import org.pitest.voices.Stresses;
 import org.pitest.voices.Voice;
 import org.pitest.voices.VoiceHandler;
@@ -20,23 +20,27 @@ import java.nio.file.Path;
 
 public class KokoroHandler implements VoiceHandler {
 
+    private static final KokoroHandler KOKORO = new KokoroHandler();
+
     public static KokoroHandler kokoro() {
-        return new KokoroHandler();
+        return KOKORO;
     }
 
     @Override
     public Voice createVoice(Model model, PiperPhonemizer phonemizer, Trace trace, VoiceSession session, float gain) {
         var params = ModelParameters.defaultParams()
                 .withStress(Stresses.NO_STRESS);
-        return new KokoroVoice(model, phonemizer, trace, session, Pause.defaultPauses(), params, gain);
+        return new KokoroVoice(model, phonemizer, trace, session, Pause.defaultPauses(), params, gain, Parallelism.sequential(), Cancellation.none(), 0);
     }
 
+    /**
+     * Voices differ only in their style tables, so the base model is loaded as a session
+     * shared by every kokoro voice the loader's owner creates.
+     */
     @Override
-    public VoiceSession createSession(Model model, OrtEnvironment env, OrtSession.SessionOptions options, Path base) throws IOException, OrtException {
-        var kokoroModel = Resource.readAsBytes("/models/kokoro_model.onnx");
-        OrtSession session = env.createSession(kokoroModel, options);
-        byte[] voiceBytes = model.asBytes(base);
-
-        return new KokoroVoiceSession(voiceBytes, model.resolveConfig(base), session);
+    public VoiceSession createSession(Model model, SessionLoader loader, Path base) throws IOException, OrtException {
+        StyleTable styles = StyleTable.fromBytes(model.asBytes(base));
+        var kokoroModel = Resource.extract("/models/kokoro_model.onnx", base);
+        return new KokoroVoiceSession(styles, model.resolveConfig(base), loader.loadShared("kokoro", kokoroModel));
     }
 }
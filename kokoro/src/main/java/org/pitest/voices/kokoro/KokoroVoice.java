@@ -1,8 +1,10 @@
 package org.pitest.voices.kokoro;
 
 import org.pitest.voices.AbstractVoice;
+import org.pitest.voices.Cancellation;
 import org.pitest.voices.Model;
 import org.pitest.voices.ModelParameters;
+import org.pitest.voices.Parallelism;
 import org.pitest.voices.Pause;
 import org.pitest.voices.Stress;
 import org.pitest.voices.Voice;
@@ -12,8 +14,6 @@ import org.pitest.voices.g2p.core.tracing.Trace;
 
 import java.util.List;
 
-import java.util.stream.LongStream;
-
 
 public class KokoroVoice extends AbstractVoice {
 
@@ -23,63 +23,72 @@ public class KokoroVoice extends AbstractVoice {
                 VoiceSession session,
                 List<Pause> pauses,
                 ModelParameters params,
-                float gain) {
-        super(model, phonemizer, trace, session, pauses, params, gain);
+                float gain,
+                Parallelism parallelism,
+                Cancellation cancellation,
+                int mergeBudget) {
+        super(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
     }
 
 
     @Override
     public Voice withPauses(List<Pause> pauses) {
-        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain);
+        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice withGain(float gain) {
-        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain);
+        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice amplifiedBy(float factor) {
-        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain * factor);
+        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain * factor, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice withSpeed(float speed) {
         return new KokoroVoice(model, phonemizer, trace, session, pauses,
-                params.withSpeed(speed), gain);
+                params.withSpeed(speed), gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice withStress(Stress stress) {
         return new KokoroVoice(model, phonemizer, trace, session, pauses,
-                params.withStress(stress), gain);
+                params.withStress(stress), gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice withModelParameters(ModelParameters params) {
-        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain);
+        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
-    protected LongStream toPhonemeId(String phoneme) {
+    public Voice withParallelism(Parallelism parallelism) {
+        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
+    }
 
-        Long id = session.idForSymbol(phoneme);
+    @Override
+    protected int idRepeats() {
+        return 1;
+    }
 
-        var pause = pauses.stream().filter(p -> p.matches(phoneme))
-                .findFirst();
+    @Override
+    protected int idsPerBeat() {
+        return 3;
+    }
 
-        if (pause.isPresent()) {
-            long beatId = session.idForSymbol(";");
-            return LongStream.generate(() -> beatId)
-                    .limit(pause.get().beats() * 3L);
-        }
+    @Override
+    public Voice withCancellation(Cancellation cancellation) {
+        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
+    }
 
-        if (id == null) {
-            trace.unknownPhoneme(phoneme);
-            return LongStream.empty();
+    @Override
+    public Voice withSentenceMerging(int maxPhonemes) {
+        if (maxPhonemes < 0) {
+            throw new IllegalArgumentException("Phoneme budget must not be negative");
         }
-
-        return LongStream.of(id);
+        return new KokoroVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, maxPhonemes);
     }
 
-}
\ No newline at end of file
+}
@@ -4,30 +4,45 @@ import ai.onnxruntime.OnnxTensor;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import org.pitest.voices.Cancellation;
 import org.pitest.voices.ModelConfig;
 import org.pitest.voices.ModelParameters;
+import org.pitest.voices.SharedSession;
+import org.pitest.voices.TensorBuffers;
 import org.pitest.voices.VoiceSession;
 import org.pitest.voices.audio.Audio;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.nio.LongBuffer;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 
 public class KokoroVoiceSession implements VoiceSession {
-    private final byte[] voiceBytes;
+    // symbols after which the model naturally pauses, so are good places to split long input
+    private static final List<String> PAUSE_SYMBOLS = List.of(";", ":", ",", ".", "!", "?", "—", "…");
+
+    // input buffer slots
+    private static final int INPUT_IDS = 0;
+    private static final int SPEED = 0;
+
+    private final StyleTable styles;
+    private final PhonemeChunker chunker;
+    private final SharedSession shared;
     private final OrtSession session;
     private final ModelConfig config;
+    private final TensorBuffers buffers = new TensorBuffers(1, 1);
 
-    KokoroVoiceSession(byte[] voiceBytes,
+    KokoroVoiceSession(StyleTable styles,
                        ModelConfig config,
-                       OrtSession session) {
-        this.voiceBytes = voiceBytes;
-        this.session = session;
+                       SharedSession shared) {
+        this.styles = styles;
+        this.shared = shared;
+        this.session = shared.session();
         this.config = config;
+        this.chunker = new PhonemeChunker(idsFor(PAUSE_SYMBOLS), idsFor(List.of(" ")));
     }
 
     @Override
@@ -36,60 +51,50 @@ public class KokoroVoiceSession implements VoiceSession {
     }
 
     @Override
-    public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
-
-       try {
-
-           long[] padded = new long[phoneme_ids.length + 2];
-           padded[0] = 0;
-           System.arraycopy(phoneme_ids, 0, padded, 1, phoneme_ids.length);
-           padded[padded.length - 1] = 0;
-
-           long[] inputShape = new long[]{1, padded.length};
-           OnnxTensor inputIds = OnnxTensor.createTensor(
-                   OrtEnvironment.getEnvironment(),
-                   LongBuffer.wrap(padded),
-                   inputShape
-           );
-
-           FloatBuffer voiceBuf = ByteBuffer.wrap(voiceBytes)
-                   .order(ByteOrder.LITTLE_ENDIAN)
-                   .asFloatBuffer();
-
-           int totalFloats = voiceBuf.remaining();
-           int styleCount = totalFloats / 256;
+    public ModelConfig config() {
+        return config;
+    }
 
-           if (styleCount <= padded.length) {
-               throw new RuntimeException("style does not contain enough rows");
-           }
+    /**
+     * The style table holds one row per input length, which limits the length of a
+     * single inference. Longer input is split at pauses and word boundaries, rendered
+     * in chunks, and the audio joined.
+     */
+    @Override
+    public Audio sayPhonemes(int sid, long[] phoneme_ids, float gain, ModelParameters params) {
+        // padding adds two tokens, and the padded length must index a style row
+        int maxChunk = styles.rows() - 3;
+        List<long[]> chunks = chunker.split(phoneme_ids, maxChunk);
+        if (chunks.size() == 1) {
+            return sayChunk(phoneme_ids, params);
+        }
+        return Audio.join(chunks.stream()
+                .map(chunk -> sayChunk(chunk, params))
+                .collect(Collectors.toList()));
+    }
 
-           float[] selectedStyle = new float[256];
-           voiceBuf.position(padded.length * 256);
-           voiceBuf.get(selectedStyle);
-
-           long[] styleShape = new long[]{1, 256};
-           OnnxTensor styleTensor = OnnxTensor.createTensor(
-                   OrtEnvironment.getEnvironment(),
-                   FloatBuffer.wrap(selectedStyle),
-                   styleShape
-           );
-
-           float[] speedArr = new float[]{params.speed()};
-           OnnxTensor speedTensor = OnnxTensor.createTensor(
-                   OrtEnvironment.getEnvironment(),
-                   FloatBuffer.wrap(speedArr),
-                   new long[]{1}
-           );
-
-
-           Map<String, OnnxTensor> inputs = new HashMap<>();
-           inputs.put("input_ids", inputIds);
-           inputs.put("style", styleTensor);
-           inputs.put("speed", speedTensor);
-
-           try (OrtSession.Result result = session.run(inputs)) {
-               float[][] audio = (float[][]) result.get(0).getValue();
-               return new Audio(audio[0], 22050);
+    private Audio sayChunk(long[] phoneme_ids, ModelParameters params) {
+       // kokoro has no length input, so inputs are never padded to buckets
+       int length = phoneme_ids.length + 2;
+       OrtEnvironment env = OrtEnvironment.getEnvironment();
+
+       // tensors read the leased buffers in place, so must be closed before the lease
+       try (TensorBuffers.Lease lease = buffers.lease();
+            OnnxTensor inputIds = OnnxTensor.createTensor(env, lease.longs(INPUT_IDS, length)
+                    .put(0).put(phoneme_ids).put(0).flip(), new long[]{1, length});
+            OnnxTensor styleTensor = OnnxTensor.createTensor(env, styles.row(length),
+                    new long[]{1, StyleTable.STYLE_DIM});
+            OnnxTensor speedTensor = OnnxTensor.createTensor(env, lease.floats(SPEED, 1)
+                    .put(params.speed()).flip(), new long[]{1})) {
+
+           Map<String, OnnxTensor> inputs = Map.of("input_ids", inputIds,
+                   "style", styleTensor,
+                   "speed", speedTensor);
+
+           try (OrtSession.Result result = Cancellation.current().run(session, inputs)) {
+               // single copy out of the tensor
+               FloatBuffer audio = ((OnnxTensor) result.get(0)).getFloatBuffer();
+               return Audio.fromBuffer(audio, 22050, 1.0);
            }
 
        } catch (OrtException e) {
@@ -100,7 +105,14 @@ public class KokoroVoiceSession implements VoiceSession {
 
     @Override
     public void close() throws Exception {
-        this.session.close();
+        this.shared.release();
+    }
+
+    private Set<Long> idsFor(List<String> symbols) {
+        return symbols.stream()
+                .map(this::idForSymbol)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
     }
 
 }
@@ -0,0 +1,70 @@
+package org.pitest.voices.kokoro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits phoneme ids that are too long for a single kokoro inference. Splits
+ * are made after pause symbols where possible, then at word boundaries, and
+ * only mid word if a single word exceeds the limit.
+ */
+class PhonemeChunker {
+
+    private final Set<Long> pauses;
+    private final Set<Long> wordBoundaries;
+
+    PhonemeChunker(Set<Long> pauses, Set<Long> wordBoundaries) {
+        this.pauses = pauses;
+        this.wordBoundaries = wordBoundaries;
+    }
+
+    List<long[]> split(long[] ids, int maxLength) {
+        if (ids.length <= maxLength) {
+            return List.of(ids);
+        }
+
+        List<long[]> chunks = new ArrayList<>();
+        int start = 0;
+        while (ids.length - start > maxLength) {
+            int end = findSplit(ids, start, start + maxLength);
+            chunks.add(Arrays.copyOfRange(ids, start, end));
+            start = end;
+        }
+        chunks.add(Arrays.copyOfRange(ids, start, ids.length));
+        return chunks;
+    }
+
+    // returns the exclusive end of the chunk starting at start
+    private int findSplit(long[] ids, int start, int limit) {
+        // a pause in the second half of the window gives a natural break
+        // without producing a very short chunk
+        int pause = lastIn(ids, start + (limit - start) / 2, limit, pauses);
+        if (pause != -1) {
+            return pause + 1;
+        }
+
+        // never split at the very first token, as that would produce an empty chunk
+        int word = lastIn(ids, start + 1, limit, wordBoundaries);
+        if (word != -1) {
+            return word + 1;
+        }
+
+        int anyPause = lastIn(ids, start + 1, limit, pauses);
+        if (anyPause != -1) {
+            return anyPause + 1;
+        }
+
+        return limit;
+    }
+
+    private static int lastIn(long[] ids, int from, int to, Set<Long> wanted) {
+        for (int i = to - 1; i >= from; i--) {
+            if (wanted.contains(ids[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
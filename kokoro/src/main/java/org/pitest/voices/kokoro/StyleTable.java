@@ -0,0 +1,48 @@
+package org.pitest.voices.kokoro;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * The only per voice data for kokoro. One 256 float style vector for each
+ * possible input length, decoded once when the voice is loaded into native
+ * memory, so tensors can read rows in place.
+ */
+class StyleTable {
+
+    static final int STYLE_DIM = 256;
+
+    private final FloatBuffer styles;
+
+    private StyleTable(FloatBuffer styles) {
+        this.styles = styles;
+    }
+
+    static StyleTable fromBytes(byte[] voiceBytes) {
+        FloatBuffer voiceBuf = ByteBuffer.wrap(voiceBytes)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+        FloatBuffer styles = ByteBuffer.allocateDirect(voiceBuf.remaining() * Float.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        styles.put(voiceBuf).flip();
+        return new StyleTable(styles.asReadOnlyBuffer());
+    }
+
+    int rows() {
+        return styles.capacity() / STYLE_DIM;
+    }
+
+    /**
+     * Style for an input of the given length
+     * @param tokens padded length of the input
+     * @return read only view of the style row
+     */
+    FloatBuffer row(int tokens) {
+        if (tokens >= rows()) {
+            throw new RuntimeException("style does not contain enough rows");
+        }
+        return styles.slice(tokens * STYLE_DIM, STYLE_DIM);
+    }
+}
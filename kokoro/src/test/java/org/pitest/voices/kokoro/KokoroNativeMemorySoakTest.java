@@ -0,0 +1,70 @@
+package org.pitest.voices.kokoro;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.pitest.voices.Chorus;
+import org.pitest.voices.Voice;
+import org.pitest.voices.g2p.core.dictionary.Dictionaries;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.pitest.voices.ChorusConfig.chorusConfig;
+
+/**
+ * Long running, so only run when -Dsoak=true. Kokoro voices share one session and
+ * choose a style row by input length, so two voices render sentences of several
+ * lengths, including one long enough to be split into chunks.
+ */
+@EnabledOnOs(OS.LINUX)
+@EnabledIfSystemProperty(named = "soak", matches = "true")
+class KokoroNativeMemorySoakTest {
+
+    private static final int WARM_UP = 200;
+    private static final int CALLS = 10_000;
+    private static final long ALLOWED_GROWTH_KB = 64 * 1024;
+
+    private static final List<String> SENTENCES = List.of(
+            "Hi.",
+            "The quick brown fox jumps over the lazy dog.",
+            "It was a bright cold day in April, and the clocks were striking thirteen. " +
+                    "Winston Smith, his chin nuzzled into his breast in an effort to escape the vile wind, " +
+                    "slipped quickly through the glass doors of Victory Mansions, though not quickly enough " +
+                    "to prevent a swirl of gritty dust from entering along with him.");
+
+    @Test
+    void nativeMemoryStaysFlat() throws IOException {
+        try (Chorus chorus = new Chorus(chorusConfig(Dictionaries.empty()))) {
+            List<Voice> voices = List.of(chorus.voice(KokoroModels.afSarah()), chorus.voice(KokoroModels.amAdam()));
+            for (int i = 0; i != WARM_UP; i++) {
+                say(voices, i);
+            }
+            long before = residentKb();
+
+            for (int i = 0; i != CALLS; i++) {
+                say(voices, i);
+            }
+            System.gc();
+
+            assertThat(residentKb() - before).isLessThan(ALLOWED_GROWTH_KB);
+        }
+    }
+
+    private static void say(List<Voice> voices, int call) {
+        voices.get(call % voices.size()).say(SENTENCES.get(call % SENTENCES.size()));
+    }
+
+    private static long residentKb() throws IOException {
+        return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                .filter(l -> l.startsWith("VmRSS:"))
+                .map(l -> l.replaceAll("[^0-9]", ""))
+                .mapToLong(Long::parseLong)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -10,6 +10,9 @@ import org.pitest.voices.audio.Audio;
 import org.pitest.voices.g2p.core.tracing.LoggingTrace;
 import org.pitest.voices.uk.EnUkDictionary;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
 
 public class KokoroTest {
 
@@ -72,4 +75,21 @@ public class KokoroTest {
 
     }
 
+    @Test
+    void mergedSentencesKeepTheirPacing() {
+        String text = "Where are you going? Home. It is late.";
+        try (Chorus chorus = new Chorus(config)) {
+            Voice separate = chorus.voice(KokoroModels.afSarah());
+            Voice merged = separate.withSentenceMerging(400);
+
+            Audio separateAudio = separate.say(text);
+            Audio mergedAudio = merged.say(text);
+
+            // the style row is chosen by input length, so merged sentences are styled as one
+            // long utterance rather than three short ones. That changes their delivery, but
+            // should not greatly change how long they take to say
+            assertThat((double) mergedAudio.length()).isCloseTo(separateAudio.length(), withinPercentage(25));
+        }
+    }
+
 }
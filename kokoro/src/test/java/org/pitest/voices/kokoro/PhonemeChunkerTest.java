@@ -0,0 +1,67 @@
+package org.pitest.voices.kokoro;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhonemeChunkerTest {
+
+    static final long SPACE = 16;
+    static final long COMMA = 3;
+
+    PhonemeChunker underTest = new PhonemeChunker(Set.of(COMMA), Set.of(SPACE));
+
+    @Test
+    void leavesShortInputAlone() {
+        long[] ids = {50, 51, SPACE, 52};
+        assertThat(underTest.split(ids, 10)).containsExactly(ids);
+    }
+
+    @Test
+    void splitsAtWordBoundaries() {
+        long[] ids = {50, 51, SPACE, 52, 53, SPACE, 54, 55};
+
+        var actual = underTest.split(ids, 4);
+
+        assertThat(actual).containsExactly(
+                new long[] {50, 51, SPACE},
+                new long[] {52, 53, SPACE},
+                new long[] {54, 55});
+    }
+
+    @Test
+    void prefersPausesInSecondHalfOfWindow() {
+        long[] ids = {50, SPACE, 51, 52, COMMA, 53, SPACE, 54, 55, 56};
+
+        var actual = underTest.split(ids, 8);
+
+        assertThat(actual.get(0)).containsExactly(50, SPACE, 51, 52, COMMA);
+    }
+
+    @Test
+    void splitsMidWordWhenNoBoundaryAvailable() {
+        long[] ids = LongStream.range(100, 112).toArray();
+
+        var actual = underTest.split(ids, 5);
+
+        assertThat(actual).extracting(a -> a.length).containsExactly(5, 5, 2);
+    }
+
+    @Test
+    void neverExceedsMaxAndPreservesAllIds() {
+        long[] ids = LongStream.range(0, 2000)
+                .map(i -> i % 7 == 0 ? SPACE : i % 31 == 0 ? COMMA : 50)
+                .toArray();
+
+        List<long[]> actual = underTest.split(ids, 509);
+
+        assertThat(actual).allSatisfy(c -> assertThat(c.length).isBetween(1, 509));
+        long[] rejoined = actual.stream().flatMapToLong(Arrays::stream).toArray();
+        assertThat(rejoined).isEqualTo(ids);
+    }
+}
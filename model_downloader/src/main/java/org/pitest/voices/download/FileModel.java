@@ -1,12 +1,11 @@
 package org.pitest.voices.download;
 
 
-import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
-import ai.onnxruntime.OrtSession;
 import org.pitest.voices.Language;
 import org.pitest.voices.Model;
 import org.pitest.voices.ModelConfig;
+import org.pitest.voices.SessionLoader;
 import org.pitest.voices.Voice;
 import org.pitest.voices.VoiceHandler;
 import org.pitest.voices.VoiceSession;
@@ -81,6 +80,11 @@ public class FileModel implements Model {
         return Files.readAllBytes(resolveFiles(cacheBase).resolve(onnx()));
     }
 
+    @Override
+    public Path asPath(Path cacheBase) throws IOException {
+        return resolveFiles(cacheBase).resolve(onnx());
+    }
+
     @Override
     public ModelConfig resolveConfig(Path cacheBase) throws IOException {
         Path json = resolveFiles(cacheBase).resolve(json());
@@ -100,8 +104,8 @@ public class FileModel implements Model {
     }
 
     @Override
-    public VoiceSession createSession(OrtEnvironment env, OrtSession.SessionOptions options, Path base) throws IOException, OrtException {
-        return handler.createSession(this, env, options, base);
+    public VoiceSession createSession(SessionLoader loader, Path base) throws IOException, OrtException {
+        return handler.createSession(this, loader, base);
     }
 
     private Path resolveFiles(Path cacheBase) throws IOException {
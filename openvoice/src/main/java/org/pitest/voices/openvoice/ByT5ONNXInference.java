@@ -4,6 +4,7 @@ import ai.onnxruntime.OnnxTensor;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import org.pitest.voices.Cancellation;
 
 import java.nio.LongBuffer;
 import java.util.ArrayList;
@@ -37,6 +38,8 @@ class ByT5ONNXInference implements AutoCloseable {
         decoderInputIds.add(padTokenId);
 
         int maxLength = 512;
+        // set by the voice rendering the sentence this word belongs to
+        Cancellation cancellation = Cancellation.current();
 
         // Greedy decoding loop
         for (int step = 0; step < maxLength; step++) {
@@ -54,7 +57,7 @@ class ByT5ONNXInference implements AutoCloseable {
                             "attention_mask", attentionMaskTensor,
                             "decoder_input_ids", decoderInputTensor);
 
-                    try (OrtSession.Result results = session.run(inputs)) {
+                    try (OrtSession.Result results = cancellation.run(session, inputs)) {
                         float[][][] logits = (float[][][]) results.get(0).getValue();
                         float[] nextTokenLogits = logits[0][logits[0].length - 1];
 
@@ -2,6 +2,7 @@ package org.pitest.voices.openvoice;
 
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtSession;
+import org.pitest.voices.SessionLoader;
 import org.pitest.voices.g2p.core.Dictionary;
 import org.pitest.voices.g2p.core.G2PModel;
 import org.pitest.voices.Resource;
@@ -12,13 +13,19 @@ import java.util.function.Supplier;
 
 public class OpenVoiceSupplier implements G2PModelSupplier {
 
+    private static final String MODEL = "fdemelo_g2p-mbyt5-12l-ipa-childes-espeak";
+
     @Override
     public G2PModel create(Supplier<OrtSession.SessionOptions> options, Dictionary dictionary, OrtEnvironment env, Path base) {
+        return create(SessionLoader.direct(env, options.get()), dictionary, base);
+    }
+
+    @Override
+    public G2PModel create(SessionLoader loader, Dictionary dictionary, Path base) {
         try {
-            var model = Resource.readAsBytes("/models/fdemelo_g2p-mbyt5-12l-ipa-childes-espeak.onnx");
-            var opts = options.get();
-            var session = env.createSession(model, opts);
-            return new OpenVoiceModel(dictionary, session, env);
+            var model = Resource.extract("/models/" + MODEL + ".onnx", base);
+            var session = loader.load(MODEL, model);
+            return new OpenVoiceModel(dictionary, session, loader.env());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
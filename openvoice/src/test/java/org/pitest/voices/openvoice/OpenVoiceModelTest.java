@@ -4,6 +4,7 @@ import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtSession;
 import org.junit.jupiter.api.Test;
 import org.pitest.voices.Language;
+import org.pitest.voices.SessionLoader;
 import org.pitest.voices.g2p.core.Dictionary;
 import org.pitest.voices.g2p.core.G2PModel;
 import org.pitest.voices.g2p.core.dictionary.Dictionaries;
@@ -47,6 +48,6 @@ class OpenVoiceModelTest {
         Path p = chorusConfig(Dictionaries.empty()).base();
 
         OrtSession.SessionOptions options = new OrtSession.SessionOptions();
-        return supplier.create(() -> options, dictionary, OrtEnvironment.getEnvironment(), p);
+        return supplier.create(SessionLoader.direct(OrtEnvironment.getEnvironment(), options), dictionary, p);
     }
 }
\ No newline at end of file
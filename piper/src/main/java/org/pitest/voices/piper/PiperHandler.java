@@ -1,11 +1,12 @@
 package org.pitest.voices.piper;
 
-import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
-import ai.onnxruntime.OrtSession;
+import org.pitest.voices.Cancellation;
 import org.pitest.voices.Model;
 import org.pitest.voices.ModelParameters;
+import org.pitest.voices.Parallelism;
 import org.pitest.voices.Pause;
+import org.pitest.voices.SessionLoader;
 import org.pitest.voices.Voice;
 import org.pitest.voices.VoiceHandler;
 import org.pitest.voices.VoiceSession;
@@ -23,13 +24,13 @@ public class PiperHandler implements VoiceHandler {
 
     @Override
     public Voice createVoice(Model model, PiperPhonemizer phonemizer, Trace trace, VoiceSession session, float gain) {
-        return new PiperVoice(model, phonemizer, trace, session, Pause.defaultPauses(), ModelParameters.defaultParams(), gain);
+        return new PiperVoice(model, phonemizer, trace, session, Pause.defaultPauses(), ModelParameters.defaultParams(), gain, Parallelism.sequential(), Cancellation.none(), 0);
     }
 
     @Override
-    public VoiceSession createSession(Model model, OrtEnvironment env, OrtSession.SessionOptions options, Path base) throws IOException, OrtException {
-        var session = env.createSession(model.asBytes(base), options);
-        return new PiperVoiceSession(env, model.resolveConfig(base), session);
+    public VoiceSession createSession(Model model, SessionLoader loader, Path base) throws IOException, OrtException {
+        var session = loader.load(model.id(), model.asPath(base));
+        return new PiperVoiceSession(loader.env(), model.resolveConfig(base), session);
     }
 
 
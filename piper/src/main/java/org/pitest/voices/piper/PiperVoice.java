@@ -1,8 +1,10 @@
 package org.pitest.voices.piper;
 
 import org.pitest.voices.AbstractVoice;
+import org.pitest.voices.Cancellation;
 import org.pitest.voices.Model;
 import org.pitest.voices.ModelParameters;
+import org.pitest.voices.Parallelism;
 import org.pitest.voices.Pause;
 import org.pitest.voices.Stress;
 import org.pitest.voices.Voice;
@@ -20,39 +22,60 @@ public class PiperVoice extends AbstractVoice {
                VoiceSession session,
                List<Pause> pauses,
                ModelParameters params,
-               float gain) {
-        super(model, phonemizer, trace, session, pauses, params, gain);
+               float gain,
+               Parallelism parallelism,
+               Cancellation cancellation,
+               int mergeBudget) {
+        super(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice withPauses(List<Pause> pauses) {
-        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain);
+        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice withGain(float gain) {
-        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain);
+        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice amplifiedBy(float factor) {
-        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain * factor);
+        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain * factor, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice withSpeed(float speed) {
         return new PiperVoice(model, phonemizer, trace, session, pauses,
-                params.withSpeed(speed), gain);
+                params.withSpeed(speed), gain, parallelism, cancellation, mergeBudget);
     }
 
     @Override
     public Voice withStress(Stress stress) {
         return new PiperVoice(model, phonemizer, trace, session, pauses,
-                params.withStress(stress), gain);
+                params.withStress(stress), gain, parallelism, cancellation, mergeBudget);
     }
     @Override
     public Voice withModelParameters(ModelParameters params) {
-        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain);
+        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
+    }
+
+    @Override
+    public Voice withParallelism(Parallelism parallelism) {
+        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
+    }
+
+    @Override
+    public Voice withCancellation(Cancellation cancellation) {
+        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, mergeBudget);
+    }
+
+    @Override
+    public Voice withSentenceMerging(int maxPhonemes) {
+        if (maxPhonemes < 0) {
+            throw new IllegalArgumentException("Phoneme budget must not be negative");
+        }
+        return new PiperVoice(model, phonemizer, trace, session, pauses, params, gain, parallelism, cancellation, maxPhonemes);
     }
 
 }
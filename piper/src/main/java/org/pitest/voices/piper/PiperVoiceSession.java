@@ -5,13 +5,22 @@ import ai.onnxruntime.OnnxValue;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import org.pitest.voices.Cancellation;
 import org.pitest.voices.ModelConfig;
 import org.pitest.voices.ModelParameters;
+import org.pitest.voices.PhonemeRequest;
+import org.pitest.voices.TensorBuffers;
 import org.pitest.voices.VoiceSession;
 import org.pitest.voices.audio.Audio;
-import java.util.HashMap;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Wraps an OrtSession. Each session contains a loaded model, so
@@ -22,9 +31,19 @@ public class PiperVoiceSession implements VoiceSession {
     private final static float NOISE_SCALE = 0.667f;
     private final static float NOISE_SCALE_W = 0.9f;
 
+    // input buffer slots
+    private final static int INPUT = 0;
+    private final static int LENGTHS = 1;
+    private final static int SID = 2;
+    private final static int SCALES = 0;
+
     private final OrtEnvironment env;
     private final OrtSession session;
     private final ModelConfig config;
+    private final long start;
+    private final long end;
+    private final long pad;
+    private final TensorBuffers buffers = new TensorBuffers(3, 1);
 
     PiperVoiceSession(OrtEnvironment env,
                  ModelConfig config,
@@ -32,6 +51,10 @@ public class PiperVoiceSession implements VoiceSession {
         this.env = env;
         this.session = session;
         this.config = config;
+        this.start = idForSymbol("^");
+        this.end = idForSymbol("$");
+        Long padId = idForSymbol("_");
+        this.pad = padId != null ? padId : 0;
     }
 
     @Override
@@ -40,41 +63,41 @@ public class PiperVoiceSession implements VoiceSession {
     }
 
     @Override
-    public Audio sayPhonemes(int sid, long[] unpaddedIds, float gain, ModelParameters params) {
-
-        long[] paddedIds = new long[unpaddedIds.length + 2];
-        paddedIds[0] = idForSymbol("^");
-        System.arraycopy(unpaddedIds, 0, paddedIds, 1, unpaddedIds.length);
-        paddedIds[paddedIds.length - 1] = idForSymbol("$");
+    public ModelConfig config() {
+        return config;
+    }
 
+    @Override
+    public Audio sayPhonemes(int sid, long[] unpaddedIds, float gain, ModelParameters params) {
 
-        long[][] shapedPhonemeIds = new long[][]{paddedIds};
-        long[] phoneme_id_lengths = new long[]{paddedIds.length};
+        int length = unpaddedIds.length + 2;
+        // padding beyond the true length is masked by input_lengths, so adds no audio
+        int bucket = params.buckets().lengthFor(length);
 
         // smaller length scale gives faster speed
         float lengthScale = 2.0f - params.speed();
 
-        try(var scales = OnnxTensor.createTensor(env, new float[]{NOISE_SCALE,
-                lengthScale, NOISE_SCALE_W});
-            var input = OnnxTensor.createTensor(env, shapedPhonemeIds);
-            var inputLengths = OnnxTensor.createTensor(env, phoneme_id_lengths)) {
-
-            Map<String, OnnxTensor> inputsMap = new HashMap<>();
-            inputsMap.put("scales",scales );
-            inputsMap.put("input", input);
-            inputsMap.put("input_lengths", inputLengths);
-            if (sid != -1) {
-                inputsMap.put("sid", OnnxTensor.createTensor(env, new long[]{sid}));
-            }
-
-            try (OrtSession.Result result = session.run(inputsMap)) {
+        // tensors read the leased buffers in place, so must be closed before the lease
+        try (TensorBuffers.Lease lease = buffers.lease();
+             var scales = OnnxTensor.createTensor(env, lease.floats(SCALES, 3)
+                     .put(NOISE_SCALE).put(lengthScale).put(NOISE_SCALE_W).flip(), new long[]{3});
+             var input = OnnxTensor.createTensor(env, fill(lease.longs(INPUT, bucket)
+                     .put(start).put(unpaddedIds).put(end), pad).flip(), new long[]{1, bucket});
+             var inputLengths = OnnxTensor.createTensor(env, lease.longs(LENGTHS, 1)
+                     .put(length).flip(), new long[]{1});
+             var sidTensor = sid == -1 ? null : OnnxTensor.createTensor(env, lease.longs(SID, 1)
+                     .put(sid).flip(), new long[]{1})) {
+
+            Map<String, OnnxTensor> inputsMap = sidTensor == null
+                    ? Map.of("scales", scales, "input", input, "input_lengths", inputLengths)
+                    : Map.of("scales", scales, "input", input, "input_lengths", inputLengths, "sid", sidTensor);
+
+            try (OrtSession.Result result = Cancellation.current().run(session, inputsMap)) {
                 Optional<OnnxValue> v = result.get("output");
                 if (v.isPresent()) {
-                    OnnxValue value = v.get();
-                    float[][][][] output = (float[][][][]) value.getValue();
-
-                    return new Audio(output[0][0][0], 22050)
-                            .withGain(gain);
+                    // single copy out of the tensor, with gain applied in place
+                    FloatBuffer output = ((OnnxTensor) v.get()).getFloatBuffer();
+                    return Audio.fromBuffer(output, 22050, gain);
                 } else {
                     throw new RuntimeException("No output!");
                 }
@@ -84,6 +107,121 @@ public class PiperVoiceSession implements VoiceSession {
         }
     }
 
+    @Override
+    public boolean supportsBatching() {
+        return true;
+    }
+
+    /**
+     * Renders requests as rows of one batch. Scales are shared by the whole batch, and
+     * the speaker id is given for every row or none, so requests are batched separately
+     * by speed and by whether they name a speaker.
+     */
+    @Override
+    public List<Audio> sayBatch(List<PhonemeRequest> requests) {
+        if (requests.size() == 1) {
+            PhonemeRequest r = requests.get(0);
+            return List.of(sayPhonemes(r.sid(), r.ids(), r.gain(), r.params()));
+        }
+
+        Map<List<Object>, List<Integer>> compatible = new LinkedHashMap<>();
+        for (int i = 0; i != requests.size(); i++) {
+            PhonemeRequest r = requests.get(i);
+            compatible.computeIfAbsent(List.of(r.params().speed(), r.sid() == -1), k -> new ArrayList<>()).add(i);
+        }
+
+        Audio[] results = new Audio[requests.size()];
+        for (List<Integer> rows : compatible.values()) {
+            List<Audio> audio = sayRows(rows.stream().map(requests::get).collect(Collectors.toList()));
+            for (int i = 0; i != rows.size(); i++) {
+                results[rows.get(i)] = audio.get(i);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private List<Audio> sayRows(List<PhonemeRequest> rows) {
+        int longest = rows.stream().mapToInt(r -> r.ids().length + 2).max().orElseThrow();
+        ModelParameters params = rows.get(0).params();
+        int width = params.buckets().lengthFor(longest);
+        float lengthScale = 2.0f - params.speed();
+        boolean withSid = rows.get(0).sid() != -1;
+
+        try (TensorBuffers.Lease lease = buffers.lease();
+             var scales = OnnxTensor.createTensor(env, lease.floats(SCALES, 3)
+                     .put(NOISE_SCALE).put(lengthScale).put(NOISE_SCALE_W).flip(), new long[]{3});
+             var input = OnnxTensor.createTensor(env, inputRows(lease.longs(INPUT, rows.size() * width), rows, width),
+                     new long[]{rows.size(), width});
+             var inputLengths = OnnxTensor.createTensor(env, lengths(lease.longs(LENGTHS, rows.size()), rows),
+                     new long[]{rows.size()});
+             var sidTensor = !withSid ? null : OnnxTensor.createTensor(env, sids(lease.longs(SID, rows.size()), rows),
+                     new long[]{rows.size()})) {
+
+            Map<String, OnnxTensor> inputsMap = sidTensor == null
+                    ? Map.of("scales", scales, "input", input, "input_lengths", inputLengths)
+                    : Map.of("scales", scales, "input", input, "input_lengths", inputLengths, "sid", sidTensor);
+
+            try (OrtSession.Result result = Cancellation.current().run(session, inputsMap)) {
+                OnnxTensor output = (OnnxTensor) result.get("output")
+                        .orElseThrow(() -> new RuntimeException("No output!"));
+                // every row is as long as the longest, so shorter ones end in padding
+                FloatBuffer samples = output.getFloatBuffer();
+                int perRow = samples.remaining() / rows.size();
+                List<FloatBuffer> rowSamples = new ArrayList<>(rows.size());
+                int[] audible = new int[rows.size()];
+                int tail = perRow;
+                for (int i = 0; i != rows.size(); i++) {
+                    FloatBuffer row = samples.duplicate().position(i * perRow).limit((i + 1) * perRow).slice();
+                    rowSamples.add(row);
+                    audible[i] = Audio.audibleLength(row, 22050);
+                    tail = Math.min(tail, perRow - audible[i]);
+                }
+                // the longest row is unpadded, so keep the quiet tail it ends with, as a
+                // single render would, after the audio of every row and trim only beyond it
+                List<Audio> audio = new ArrayList<>(rows.size());
+                for (int i = 0; i != rows.size(); i++) {
+                    FloatBuffer row = rowSamples.get(i);
+                    row.limit(audible[i] + tail);
+                    audio.add(Audio.fromBuffer(row, 22050, rows.get(i).gain()));
+                }
+                return audio;
+            }
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private LongBuffer inputRows(LongBuffer buffer, List<PhonemeRequest> rows, int width) {
+        for (PhonemeRequest r : rows) {
+            buffer.put(start).put(r.ids()).put(end);
+            for (int i = r.ids().length + 2; i != width; i++) {
+                buffer.put(pad);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static LongBuffer lengths(LongBuffer buffer, List<PhonemeRequest> rows) {
+        for (PhonemeRequest r : rows) {
+            buffer.put(r.ids().length + 2);
+        }
+        return buffer.flip();
+    }
+
+    private static LongBuffer sids(LongBuffer buffer, List<PhonemeRequest> rows) {
+        for (PhonemeRequest r : rows) {
+            buffer.put(r.sid());
+        }
+        return buffer.flip();
+    }
+
+    private static LongBuffer fill(LongBuffer buffer, long value) {
+        while (buffer.hasRemaining()) {
+            buffer.put(value);
+        }
+        return buffer;
+    }
+
     @Override
     public void close() throws Exception {
         this.session.close();